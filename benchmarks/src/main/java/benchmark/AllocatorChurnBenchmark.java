@@ -0,0 +1,72 @@
+package benchmark;
+
+import controller.HospitalBedAllocator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Bed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Admission and discharge churn on a full hospital with a standing waiting queue.
+// Every discharge hands the freed bed to the highest priority waiting patient.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocatorChurnBenchmark {
+    @Param({"200", "2000"})
+    private int beds;
+
+    @Param({"1000", "100000"})
+    private int waiting;
+
+    private HospitalBedAllocator allocator;
+    private Random random;
+    private int nextPatientId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceStdout();
+        random = new Random(42);
+        allocator = new HospitalBedAllocator();
+        for (int i = 0; i < beds; i++) {
+            allocator.addBed(new Bed(i, "Ward-" + i, i % 10 == 0 ? "ICU" : "Regular Ward"));
+        }
+        // Fill every bed, then leave a standing queue
+        for (nextPatientId = 0; nextPatientId < beds + waiting; nextPatientId++) {
+            allocator.insertPatient(BenchmarkData.patient(nextPatientId, random));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.restoreStdout();
+    }
+
+    // Register a new patient while every bed is taken
+    @Benchmark
+    public boolean insertPatient() {
+        return allocator.insertPatient(BenchmarkData.patient(nextPatientId++, random));
+    }
+
+    // Discharge from a random bed (re-assigning it immediately) and admit a replacement
+    @Benchmark
+    public boolean releaseBedAndAdmit() {
+        boolean released = allocator.releaseBed(random.nextInt(beds));
+        allocator.insertPatient(BenchmarkData.patient(nextPatientId++, random));
+        return released;
+    }
+}
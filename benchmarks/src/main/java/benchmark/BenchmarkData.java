@@ -0,0 +1,57 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import model.Patient;
+
+// Shared fixtures for the benchmarks
+final class BenchmarkData {
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda",
+        "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis",
+        "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas"
+    };
+
+    private static PrintStream originalOut;
+
+    private BenchmarkData() {
+    }
+
+    // Build a patient with a random criticality (1-3) and a distinct arrival time
+    static Patient patient(int patientId, Random random) {
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + patientId;
+        Patient patient = new Patient(patientId, name, 1 + random.nextInt(3));
+        patient.setArrivalTime(1_000_000L + patientId);
+        return patient;
+    }
+
+    // The allocator logs every operation, and EventLog's writer thread prints it to
+    // System.out; discard it so the benchmarks do not compete with console output
+    static void silenceStdout() {
+        if (originalOut == null) {
+            originalOut = System.out;
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }));
+        }
+    }
+
+    // Restore the console after a trial
+    static void restoreStdout() {
+        if (originalOut != null) {
+            System.setOut(originalOut);
+            originalOut = null;
+        }
+    }
+}
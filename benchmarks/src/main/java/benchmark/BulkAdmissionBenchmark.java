@@ -0,0 +1,72 @@
+package benchmark;
+
+import controller.PatientQueue;
+import controller.PatientQueueType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Building a waiting queue from a large batch (startup load, mass-casualty intake):
+// one insert per patient versus a single insertAll. ARRIVAL feeds patients oldest first,
+// REVERSE newest first, the worst case for one-by-one sift-up.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkAdmissionBenchmark {
+    @Param({"100000", "1000000"})
+    private int patients;
+
+    @Param({"BINARY", "INDEXED", "PACKED", "BUCKET"})
+    private PatientQueueType queueType;
+
+    @Param({"ARRIVAL", "REVERSE"})
+    private String order;
+
+    private List<Patient> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        batch = new ArrayList<>(patients);
+        for (int i = 0; i < patients; i++) {
+            batch.add(BenchmarkData.patient(i, random));
+        }
+        if (order.equals("REVERSE")) {
+            Collections.reverse(batch);
+        }
+    }
+
+    @Benchmark
+    public PatientQueue insertOneByOne() {
+        PatientQueue queue = queueType.create();
+        for (Patient patient : batch) {
+            queue.insert(patient);
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public PatientQueue insertAll() {
+        PatientQueue queue = queueType.create();
+        queue.insertAll(batch);
+        return queue;
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import controller.PatientQueue;
+import controller.PatientQueueType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Steady-state waiting-queue operations at 10^3 - 10^6 entries, for every PatientQueue implementation.
+// Each operation keeps the queue size constant so the score reflects the configured size.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MinHeapBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"BINARY", "INDEXED", "PACKED", "BUCKET"})
+    private PatientQueueType queueType;
+
+    private PatientQueue queue;
+    private Patient[] patients;
+    private Random random;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(42);
+        queue = queueType.create();
+        patients = new Patient[size];
+        for (int i = 0; i < size; i++) {
+            patients[i] = BenchmarkData.patient(i, random);
+            queue.insert(patients[i]);
+        }
+        nextId = size;
+    }
+
+    // Admit one patient and assign the highest priority one
+    @Benchmark
+    public Patient insertThenExtractMin() {
+        Patient patient = new Patient(nextId, "Benchmark", 1 + (nextId % 3));
+        patient.setArrivalTime(1_000_000L + nextId);
+        nextId++;
+        queue.insert(patient);
+        return queue.extractMin();
+    }
+
+    // Remove a random waiting patient by ID and put them back
+    @Benchmark
+    public boolean removePatientThenInsert() {
+        Patient patient = patients[random.nextInt(size)];
+        if (queue.removePatient(patient.getPatientId())) {
+            queue.insert(patient);
+            return true;
+        }
+        return false;
+    }
+
+    // Look up a random waiting patient by ID
+    @Benchmark
+    public Patient findPatient() {
+        return queue.findPatient(random.nextInt(size));
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark;
+
+import controller.HospitalBedAllocator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Bed;
+import model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Patient lookups against a large discharge history
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PatientLookupBenchmark {
+    private static final int BEDS = 500;
+
+    @Param({"10000", "100000", "1000000"})
+    private int dischargedHistory;
+
+    private HospitalBedAllocator allocator;
+    private Random random;
+    private int totalPatients;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceStdout();
+        random = new Random(42);
+        allocator = new HospitalBedAllocator();
+        for (int i = 0; i < BEDS; i++) {
+            allocator.addBed(new Bed(i, "Ward-" + i, "Regular Ward"));
+        }
+        // Cycle patients through the beds until the history is built up
+        int patientId = 0;
+        while (allocator.getDischargedPatientCount() < dischargedHistory) {
+            allocator.insertPatient(BenchmarkData.patient(patientId++, random));
+            if (patientId > BEDS) {
+                allocator.releaseBed(random.nextInt(BEDS));
+            }
+        }
+        totalPatients = patientId;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.restoreStdout();
+    }
+
+    @Benchmark
+    public Patient findPatientById() {
+        return allocator.findPatientById(random.nextInt(totalPatients));
+    }
+
+    // Selective query: one specific patient's full name
+    @Benchmark
+    public List<Patient> findPatientsByFullName() {
+        return allocator.findPatientsByName("Smith " + random.nextInt(totalPatients));
+    }
+
+    // Broad query: a common surname
+    @Benchmark
+    public List<Patient> findPatientsBySurname() {
+        return allocator.findPatientsByName("garcia");
+    }
+}
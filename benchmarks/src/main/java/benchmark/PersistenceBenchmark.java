@@ -0,0 +1,131 @@
+package benchmark;
+
+import controller.DataPersistence;
+import controller.HospitalBedAllocator;
+import controller.SystemSnapshot;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Bed;
+import model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Save and load of large data files through DataPersistence, as CSV and as binary snapshots
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+    @Param({"100000", "1000000"})
+    private int patients;
+
+    private File directory;
+    private File patientsFile;
+    private File bedsFile;
+    private File snapshotFile;
+    private List<Patient> patientList;
+    private List<Bed> bedList;
+    private SystemSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.silenceStdout();
+        directory = Files.createTempDirectory("hospital-bench").toFile();
+        patientsFile = new File(directory, "patients.txt");
+        bedsFile = new File(directory, "beds.txt");
+        snapshotFile = new File(directory, "hospital.snap");
+
+        Random random = new Random(42);
+        patientList = new ArrayList<>(patients);
+        for (int i = 0; i < patients; i++) {
+            patientList.add(BenchmarkData.patient(i, random));
+        }
+        bedList = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            bedList.add(new Bed(i, "Ward-" + i, "Regular Ward"));
+        }
+
+        List<SystemSnapshot.BedRecord> bedRecords = new ArrayList<>(bedList.size());
+        int[] freeBedIds = new int[bedList.size()];
+        for (int i = 0; i < bedList.size(); i++) {
+            Bed bed = bedList.get(i);
+            bedRecords.add(new SystemSnapshot.BedRecord(bed.getBedId(), bed.getLocation(), bed.getType(), false, -1));
+            freeBedIds[i] = bed.getBedId();
+        }
+        List<SystemSnapshot.PatientRecord> patientRecords = new ArrayList<>(patients);
+        for (Patient patient : patientList) {
+            patientRecords.add(new SystemSnapshot.PatientRecord(patient.getPatientId(), patient.getName(),
+                    patient.getCriticality(), patient.getArrivalTime(), -1));
+        }
+        List<SystemSnapshot.PatientRecord> none = Collections.emptyList();
+        snapshot = new SystemSnapshot(bedRecords, freeBedIds, patientRecords, none, none);
+
+        // Files for the load benchmarks
+        DataPersistence.savePatients(patientList, patientsFile);
+        DataPersistence.saveBeds(bedList, bedsFile);
+        DataPersistence.saveSnapshot(snapshot, snapshotFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+        BenchmarkData.restoreStdout();
+    }
+
+    @Benchmark
+    public void savePatients() {
+        DataPersistence.savePatients(patientList, new File(directory, "patients-out.txt"));
+    }
+
+    @Benchmark
+    public List<Patient> loadPatients() {
+        return DataPersistence.loadPatients(patientsFile);
+    }
+
+    @Benchmark
+    public List<Bed> loadBeds() {
+        return DataPersistence.loadBeds(bedsFile);
+    }
+
+    @Benchmark
+    public HospitalBedAllocator importCsv() {
+        HospitalBedAllocator allocator = new HospitalBedAllocator();
+        allocator.importCsv(directory);
+        return allocator;
+    }
+
+    @Benchmark
+    public boolean saveSnapshot() {
+        return DataPersistence.saveSnapshot(snapshot, new File(directory, "out.snap"));
+    }
+
+    @Benchmark
+    public SystemSnapshot loadSnapshot() {
+        return DataPersistence.loadSnapshot(snapshotFile);
+    }
+}
@@ -0,0 +1,168 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import model.Bed;
+import model.Patient;
+
+// Concurrent front end for a HospitalBedAllocator.
+// Any number of threads (triage desks, discharge kiosks) submit commands to a lock-free
+// multi-producer queue; one dedicated allocation thread drains it and applies every command
+// to the allocator in order. The allocator is therefore only ever touched by a single thread,
+// so a bed can never be handed to two patients. Callers get a CompletableFuture per command.
+//
+// Once the engine is started, all access to the allocator, including reads, must go
+// through it (use submit for queries that have no dedicated method).
+public class AllocationEngine implements AutoCloseable {
+    // A queued operation together with the future that receives its result
+    private static final class Command<T> {
+        final Function<HospitalBedAllocator, T> operation;
+        final CompletableFuture<T> result;
+
+        Command(Function<HospitalBedAllocator, T> operation) {
+            this.operation = operation;
+            this.result = new CompletableFuture<>();
+        }
+
+        void run(HospitalBedAllocator allocator) {
+            try {
+                result.complete(operation.apply(allocator));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+    private final HospitalBedAllocator allocator;
+    private final ConcurrentLinkedQueue<Command<?>> commands;
+    private final Thread worker;
+    private volatile boolean running;
+    private volatile boolean idle; // Worker is parked or about to park
+
+    public AllocationEngine(HospitalBedAllocator allocator) {
+        this.allocator = allocator;
+        this.commands = new ConcurrentLinkedQueue<>();
+        this.worker = new Thread(this::drainLoop, "allocation-engine");
+        this.worker.setDaemon(true);
+    }
+
+    // Start the allocation thread
+    public synchronized void start() {
+        if (worker.getState() != Thread.State.NEW) {
+            throw new IllegalStateException("Allocation engine can only be started once");
+        }
+        running = true;
+        worker.start();
+    }
+
+    // Check if the engine accepts commands
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Run an arbitrary operation on the allocation thread
+    public <T> CompletableFuture<T> submit(Function<HospitalBedAllocator, T> operation) {
+        Command<T> command = new Command<>(operation);
+        if (!running) {
+            command.result.completeExceptionally(new RejectedExecutionException("Allocation engine is not running"));
+            return command.result;
+        }
+        commands.offer(command);
+        if (!running) {
+            // close() may have finished, final drain included, between the check and the
+            // offer; if nobody has taken the command it will never run
+            if (commands.remove(command)) {
+                command.result.completeExceptionally(new RejectedExecutionException("Allocation engine is closed"));
+            }
+            return command.result;
+        }
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+        return command.result;
+    }
+
+    // Register a patient; completes with false if the patient ID is already known
+    public CompletableFuture<Boolean> admit(Patient patient) {
+        return submit(a -> a.insertPatient(patient));
+    }
+
+    // Register a batch of patients in one command (e.g. mass-casualty intake);
+    // completes with the number of patients actually inserted
+    public CompletableFuture<Integer> admitAll(Collection<Patient> patients) {
+        List<Patient> batch = new ArrayList<>(patients); // The caller may reuse its collection
+        return submit(a -> a.insertPatients(batch));
+    }
+
+    // Discharge the patient in a bed; completes with false if the bed is unknown or free
+    public CompletableFuture<Boolean> discharge(int bedId) {
+        return submit(a -> a.releaseBed(bedId));
+    }
+
+    // Change a waiting patient's criticality; completes with false if the patient is not waiting
+    public CompletableFuture<Boolean> reprioritize(int patientId, int newCriticality) {
+        return submit(a -> a.reassignPatient(patientId, newCriticality));
+    }
+
+    // Add a bed; completes with false if the bed ID is already registered
+    public CompletableFuture<Boolean> addBed(Bed bed) {
+        return submit(a -> a.addBed(bed));
+    }
+
+    // Add a batch of beds in one command; completes with the number of beds actually added
+    public CompletableFuture<Integer> addBeds(Collection<Bed> beds) {
+        List<Bed> batch = new ArrayList<>(beds); // The caller may reuse its collection
+        return submit(a -> a.addBeds(batch));
+    }
+
+    // Look up a patient by ID
+    public CompletableFuture<Patient> findPatient(int patientId) {
+        return submit(a -> a.findPatientById(patientId));
+    }
+
+    // Single consumer: apply queued commands until stopped and the queue is empty
+    private void drainLoop() {
+        while (running || !commands.isEmpty()) {
+            Command<?> command = commands.poll();
+            if (command == null) {
+                idle = true;
+                // Re-check after publishing idle so a concurrent offer cannot be missed
+                if (running && commands.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            command.run(allocator);
+        }
+    }
+
+    // Stop accepting commands, finish the queued ones and stop the allocation thread
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // The worker still owns the queue and will drain it
+        }
+        // Fail anything that raced past the running check after the worker exited
+        Command<?> command;
+        while ((command = commands.poll()) != null) {
+            command.result.completeExceptionally(new RejectedExecutionException("Allocation engine is closed"));
+        }
+    }
+}
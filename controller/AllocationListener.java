@@ -0,0 +1,34 @@
+package controller;
+
+import java.util.List;
+import model.Bed;
+import model.Patient;
+
+// Receives HospitalBedAllocator state changes. Each callback runs on the allocator's thread
+// right after the change is fully applied, so a listener may read the allocator from it.
+// Implement only the callbacks you need; the rest default to doing nothing.
+public interface AllocationListener {
+    // New patients joined the waiting queue (one patient, or a whole batch from insertPatients)
+    default void patientsAdmitted(List<Patient> patients) {
+    }
+
+    // A waiting patient was given a bed
+    default void patientAssigned(Patient patient, Bed bed) {
+    }
+
+    // A waiting patient's criticality and arrival time changed
+    default void patientReprioritized(Patient patient) {
+    }
+
+    // A bed was released; dischargedPatient is null if the bed had no patient recorded
+    default void bedReleased(Bed bed, Patient dischargedPatient) {
+    }
+
+    // A bed was registered
+    default void bedAdded(Bed bed) {
+    }
+
+    // The whole state was replaced (data loaded from files, a snapshot restored or a journal replayed)
+    default void stateReplaced() {
+    }
+}
@@ -0,0 +1,329 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import model.Patient;
+
+// Bucketed priority queue with one FIFO list per criticality level.
+// Patients in a bucket stay sorted by arrival time, so taking the head of the lowest
+// non-empty bucket yields the same order as the binary heap. Appending a new arrival,
+// extracting the minimum and removing by ID are all O(1) for the bounded criticality range.
+// A patient whose arrival time is older than the k newest in its bucket (a reprioritised
+// long-waiting patient, say) is inserted in O(k); batches are sorted and merged into each
+// bucket in one pass, so restoring a waiting list in any order stays O(n log n).
+public class BucketQueue implements PatientQueue {
+    private static final int DEFAULT_LEVELS = 4; // Criticality 0-3; grows if higher levels appear
+
+    // Doubly-linked list node so any patient can be unlinked in O(1)
+    private static class Node {
+        Patient patient;
+        int level;
+        Node prev;
+        Node next;
+
+        Node(Patient patient, int level) {
+            this.patient = patient;
+            this.level = level;
+        }
+    }
+
+    private Node[] heads;
+    private Node[] tails;
+    private int[] counts;
+    private int size;
+    private int minLevel; // No bucket below this level is non-empty
+    private IntObjectMap<Node> nodes; // patientId -> list node
+
+    public BucketQueue() {
+        this(DEFAULT_LEVELS);
+    }
+
+    public BucketQueue(int levels) {
+        this.heads = new Node[Math.max(1, levels)];
+        this.tails = new Node[heads.length];
+        this.counts = new int[heads.length];
+        this.size = 0;
+        this.minLevel = heads.length;
+        this.nodes = new IntObjectMap<>();
+    }
+
+    // Get the number of waiting patients
+    public int size() {
+        return size;
+    }
+
+    // Check if the queue is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Insert a new patient into the bucket for its criticality
+    public void insert(Patient patient) {
+        if (nodes.containsKey(patient.getPatientId())) {
+            throw new IllegalArgumentException("Patient " + patient.getPatientId() + " is already in the queue");
+        }
+        Node node = new Node(patient, levelOf(patient));
+        link(node);
+        nodes.put(patient.getPatientId(), node);
+    }
+
+    // Insert a batch of patients, all or nothing. The batch may come in any order (e.g. a
+    // binary heap's array order), so it is sorted by criticality and arrival time and merged
+    // into each bucket from the tail in one pass rather than inserted one by one.
+    public void insertAll(Collection<Patient> batch) {
+        List<Node> added = new ArrayList<>(batch.size());
+        try {
+            for (Patient patient : batch) {
+                if (nodes.containsKey(patient.getPatientId())) {
+                    throw new IllegalArgumentException("Patient " + patient.getPatientId() + " is already in the queue");
+                }
+                Node node = new Node(patient, levelOf(patient));
+                nodes.put(patient.getPatientId(), node);
+                added.add(node);
+            }
+        } catch (IllegalArgumentException e) {
+            for (Node node : added) {
+                nodes.remove(node.patient.getPatientId());
+            }
+            throw e;
+        }
+
+        // Stable, so patients with equal keys keep their batch order, as with insert
+        added.sort((a, b) -> a.level != b.level ? Integer.compare(a.level, b.level) :
+                             Long.compare(a.patient.getArrivalTime(), b.patient.getArrivalTime()));
+        Node after = null;
+        int level = -1;
+        for (int i = added.size() - 1; i >= 0; i--) {
+            Node node = added.get(i);
+            if (node.level != level) {
+                level = node.level;
+                after = tails[level];
+            }
+            // The rest of the batch arrived no later than this node, so the walk resumes here
+            after = findPrevious(after, node.patient.getArrivalTime());
+            linkAfter(after, node);
+        }
+    }
+
+    // Map a patient's criticality to a bucket, growing the bucket array if needed
+    private int levelOf(Patient patient) {
+        int level = patient.getCriticality();
+        if (level < 0 || level > MAX_CRITICALITY) {
+            throw new IllegalArgumentException("Criticality out of range: " + level);
+        }
+        if (level >= heads.length) {
+            int levels = Math.max(level + 1, heads.length * 2);
+            heads = Arrays.copyOf(heads, levels);
+            tails = Arrays.copyOf(tails, levels);
+            counts = Arrays.copyOf(counts, levels);
+        }
+        return level;
+    }
+
+    // Add a node to its bucket, keeping the bucket sorted by arrival time. New arrivals go
+    // to the tail in O(1); an older arrival time walks back past the k later ones, O(k).
+    private void link(Node node) {
+        linkAfter(findPrevious(tails[node.level], node.patient.getArrivalTime()), node);
+    }
+
+    // Walk back from a node to the last one that arrived no later than an arrival time
+    // (null if none did)
+    private static Node findPrevious(Node from, long arrival) {
+        Node after = from;
+        while (after != null && after.patient.getArrivalTime() > arrival) {
+            after = after.prev;
+        }
+        return after;
+    }
+
+    // Link a node into its bucket after another node (null for the head)
+    private void linkAfter(Node after, Node node) {
+        int level = node.level;
+        node.prev = after;
+        node.next = after == null ? heads[level] : after.next;
+        if (node.prev == null) {
+            heads[level] = node;
+        } else {
+            node.prev.next = node;
+        }
+        if (node.next == null) {
+            tails[level] = node;
+        } else {
+            node.next.prev = node;
+        }
+
+        counts[level]++;
+        size++;
+        if (level < minLevel) {
+            minLevel = level;
+        }
+    }
+
+    // Detach a node from its bucket
+    private void unlink(Node node) {
+        int level = node.level;
+        if (node.prev == null) {
+            heads[level] = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tails[level] = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        counts[level]--;
+        size--;
+    }
+
+    // Find the lowest non-empty bucket, or -1 if the queue is empty
+    private int firstLevel() {
+        if (size == 0) {
+            return -1;
+        }
+        while (heads[minLevel] == null) {
+            minLevel++;
+        }
+        return minLevel;
+    }
+
+    // Get the highest priority patient without removing it
+    public Patient getMin() {
+        int level = firstLevel();
+        return level < 0 ? null : heads[level].patient;
+    }
+
+    // Get the highest priority patient without removing it
+    public Patient peek() {
+        return getMin();
+    }
+
+    // Remove and return the highest priority patient
+    public Patient extractMin() {
+        int level = firstLevel();
+        if (level < 0) {
+            return null;
+        }
+        Node node = heads[level];
+        unlink(node);
+        nodes.remove(node.patient.getPatientId());
+        return node.patient;
+    }
+
+    // Find a waiting patient by ID
+    public Patient findPatient(int patientId) {
+        Node node = nodes.get(patientId);
+        return node == null ? null : node.patient;
+    }
+
+    // Remove a specific patient from the queue
+    public boolean removePatient(int patientId) {
+        Node node = nodes.remove(patientId);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    // Move the patient to the bucket and position matching its current criticality and arrival
+    // time: O(1) if it is the newest arrival there, otherwise O(k) for the k patients in the
+    // target bucket who arrived after it
+    public void updatePatientPriority(Patient patient) {
+        Node node = nodes.get(patient.getPatientId());
+        if (node == null) {
+            insert(patient);
+            return;
+        }
+        unlink(node);
+        node.patient = patient;
+        node.level = levelOf(patient);
+        link(node);
+    }
+
+    // Raise a waiting patient's priority; the new key must not be larger than the current one
+    public boolean decreaseKey(int patientId, int newCriticality, long newArrivalTime) {
+        Node node = nodes.get(patientId);
+        if (node == null) {
+            return false;
+        }
+        Patient patient = node.patient;
+        if (newCriticality > patient.getCriticality()
+                || (newCriticality == patient.getCriticality() && newArrivalTime > patient.getArrivalTime())) {
+            throw new IllegalArgumentException("decreaseKey would lower the priority of patient " + patientId);
+        }
+        patient.setCriticality(newCriticality);
+        patient.setArrivalTime(newArrivalTime);
+        updatePatientPriority(patient);
+        return true;
+    }
+
+    // Remove all patients from the queue
+    public void clear() {
+        Arrays.fill(heads, null);
+        Arrays.fill(tails, null);
+        Arrays.fill(counts, 0);
+        size = 0;
+        minLevel = heads.length;
+        nodes.clear();
+    }
+
+    // Get the number of waiting patients with a given criticality
+    public int countAtLevel(int criticality) {
+        return criticality >= 0 && criticality < counts.length ? counts[criticality] : 0;
+    }
+
+    // Display the queue bucket by bucket
+    public void displayLevelByLevel() {
+        if (isEmpty()) {
+            System.out.println("Queue is empty");
+            return;
+        }
+
+        System.out.println("Queue structure bucket by bucket:");
+        for (int level = 0; level < heads.length; level++) {
+            if (heads[level] == null) {
+                continue;
+            }
+            System.out.print("Criticality " + level + ": ");
+            for (Node node = heads[level]; node != null; node = node.next) {
+                System.out.print(node.patient + " | ");
+            }
+            System.out.println();
+        }
+    }
+
+    // Get the waiting patients in priority order. A sorted array is also a valid
+    // min-heap layout, so the heap views can display it unchanged.
+    public List<Patient> getHeapList() {
+        List<Patient> list = new ArrayList<>(size);
+        for (int level = 0; level < heads.length; level++) {
+            for (Node node = heads[level]; node != null; node = node.next) {
+                list.add(node.patient);
+            }
+        }
+        return list;
+    }
+
+    // Get patient at a position in priority order (for visualization)
+    public Patient getPatientAt(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        int level = 0;
+        // Skip whole buckets using their counts
+        while (index >= counts[level]) {
+            index -= counts[level];
+            level++;
+        }
+        Node node = heads[level];
+        for (int i = 0; i < index; i++) {
+            node = node.next;
+        }
+        return node.patient;
+    }
+}
@@ -0,0 +1,81 @@
+package controller;
+
+import java.util.Arrays;
+
+// Live patient counts per criticality level and location (waiting, assigned, discharged).
+// The allocator updates them on every state transition so census queries are O(1).
+// Levels 1-3 have a row each; any other criticality is counted in one shared "other" row,
+// so a counter never throws and the table never grows.
+public class CensusCounters {
+    private static final int LOCATIONS = PatientLocation.values().length;
+    private static final int OTHER = 0; // row for criticality levels outside 1-3
+
+    private final int[][] counts;          // [criticality row][location ordinal]
+    private final int[] totalsByLocation;  // [location ordinal]
+
+    public CensusCounters() {
+        this.counts = new int[4][LOCATIONS];
+        this.totalsByLocation = new int[LOCATIONS];
+    }
+
+    // Get the row for a criticality level
+    private int[] row(int criticality) {
+        return counts[criticality >= 1 && criticality <= 3 ? criticality : OTHER];
+    }
+
+    // Count a patient entering a location
+    public void add(int criticality, PatientLocation location) {
+        row(criticality)[location.ordinal()]++;
+        totalsByLocation[location.ordinal()]++;
+    }
+
+    // Count a patient leaving a location
+    public void remove(int criticality, PatientLocation location) {
+        row(criticality)[location.ordinal()]--;
+        totalsByLocation[location.ordinal()]--;
+    }
+
+    // Move a patient between locations at the same criticality
+    public void move(int criticality, PatientLocation from, PatientLocation to) {
+        int[] row = row(criticality);
+        row[from.ordinal()]--;
+        row[to.ordinal()]++;
+        totalsByLocation[from.ordinal()]--;
+        totalsByLocation[to.ordinal()]++;
+    }
+
+    // Move a patient between criticality levels within one location
+    public void changeCriticality(int oldCriticality, int newCriticality, PatientLocation location) {
+        row(oldCriticality)[location.ordinal()]--;
+        row(newCriticality)[location.ordinal()]++;
+    }
+
+    // Get the number of patients with a criticality in a location
+    // (for levels outside 1-3, the number with any such level)
+    public int get(int criticality, PatientLocation location) {
+        return row(criticality)[location.ordinal()];
+    }
+
+    // Get the number of patients with a criticality across all locations
+    // (for levels outside 1-3, the number with any such level)
+    public int getByCriticality(int criticality) {
+        int total = 0;
+        for (int count : row(criticality)) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Get the number of patients in a location across all criticality levels
+    public int getByLocation(PatientLocation location) {
+        return totalsByLocation[location.ordinal()];
+    }
+
+    // Reset all counts to zero
+    public void clear() {
+        for (int[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        Arrays.fill(totalsByLocation, 0);
+    }
+}
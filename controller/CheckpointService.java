@@ -0,0 +1,192 @@
+package controller;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import model.Bed;
+import model.Patient;
+
+// Saves allocator checkpoints without blocking the thread that owns the allocator.
+// checkpoint() only copies the changes since the last save (or, for a full checkpoint or
+// a specific file, the whole state) on the calling thread, which must be the allocator's
+// owner (the Swing event thread, or the AllocationEngine thread). A background thread then
+// writes them to a temporary file, forces it to disk and renames it into place, so a crash
+// mid-write never damages the last good checkpoint. When a journal is open the journal
+// takes the checkpoint instead.
+//
+// A service for the default snapshot file also takes over HospitalBedAllocator.saveSystemData,
+// so every save of that file is written by the one background thread.
+//
+// Periodic checkpoints (-Dhospital.checkpoint=<seconds>) are captured through an executor
+// that runs on the owner thread and are skipped while nothing has changed. A shutdown hook
+// waits for checkpoints that are still being written.
+public final class CheckpointService implements AllocationListener, AutoCloseable {
+    public static final String PROPERTY = "hospital.checkpoint";
+
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final HospitalBedAllocator allocator;
+    private final File file; // null for the default snapshot file
+    private final ScheduledExecutorService writer;
+    private final AtomicInteger writesInFlight = new AtomicInteger();
+    private final Thread shutdownHook;
+    private volatile boolean changed = true; // set by allocator events, cleared by each checkpoint
+    private volatile boolean periodic;
+
+    // Checkpoint to the default snapshot file
+    public CheckpointService(HospitalBedAllocator allocator) {
+        this(allocator, null);
+    }
+
+    // Checkpoint to a specific file
+    public CheckpointService(HospitalBedAllocator allocator, File file) {
+        this.allocator = allocator;
+        this.file = file;
+        this.writer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shutdownHook = new Thread(this::awaitWrites, "checkpoint-flush");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        allocator.addListener(this);
+        if (file == null) {
+            allocator.setCheckpointService(this);
+        }
+    }
+
+    // Capture the changes since the last save and write them in the background; must run on
+    // the allocator's owner thread. Completes with true once the checkpoint is safely on disk.
+    public CompletableFuture<Boolean> checkpoint() {
+        return checkpoint(false);
+    }
+
+    // Capture a checkpoint, writing the whole state instead of the changes if full is set
+    public CompletableFuture<Boolean> checkpoint(boolean full) {
+        changed = false;
+        Journal journal = allocator.getJournal();
+        if (journal != null) {
+            journal.checkpoint();
+            return submit(journal::sync);
+        }
+
+        long start = System.nanoTime();
+        Supplier<Boolean> write;
+        if (file == null) {
+            DeltaStore.Save save = allocator.getStore().prepareSave(full);
+            write = save::write;
+        } else {
+            SystemSnapshot snapshot = allocator.captureSnapshot();
+            write = () -> DataPersistence.saveSnapshot(snapshot, file);
+        }
+        EventLog.log(LogLevel.DEBUG, "Checkpoint captured in {} us", (System.nanoTime() - start) / 1000);
+        return submit(() -> {
+            boolean saved = write.get();
+            if (saved) {
+                EventLog.log(LogLevel.INFO, "Checkpoint saved");
+            }
+            return saved;
+        });
+    }
+
+    // Run a write on the background thread and track it until it finishes
+    private CompletableFuture<Boolean> submit(Supplier<Boolean> write) {
+        writesInFlight.incrementAndGet();
+        CompletableFuture<Boolean> result = CompletableFuture.supplyAsync(write, writer);
+        result.whenComplete((saved, error) -> writesInFlight.decrementAndGet());
+        return result;
+    }
+
+    // Take a checkpoint every period, capturing each one through an executor that runs tasks
+    // on the allocator's owner thread (e.g. SwingUtilities::invokeLater)
+    public void startPeriodic(long period, TimeUnit unit, Executor ownerThread) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Checkpoint period must be positive");
+        }
+        periodic = true;
+        writer.scheduleWithFixedDelay(() -> ownerThread.execute(() -> {
+            // Skip if nothing changed, or if the previous checkpoint is still being written
+            if (changed && writesInFlight.get() == 0) {
+                checkpoint();
+            }
+        }), period, period, unit);
+    }
+
+    // Check if periodic checkpoints are running
+    public boolean isPeriodic() {
+        return periodic;
+    }
+
+    // Wait until every checkpoint requested so far is written (or a timeout passes)
+    public void awaitWrites() {
+        try {
+            writer.submit(() -> { }).get(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            // Shut down already, or the disk is stuck; nothing more to wait for
+        }
+    }
+
+    // Stop periodic checkpoints and finish the writes already requested
+    @Override
+    public void close() {
+        allocator.removeListener(this);
+        if (allocator.getCheckpointService() == this) {
+            allocator.setCheckpointService(null);
+        }
+        periodic = false;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; the hook is running or has run
+        }
+    }
+
+    // Allocator events: remember that the state changed since the last checkpoint
+
+    @Override
+    public void patientsAdmitted(List<Patient> patients) {
+        changed = true;
+    }
+
+    @Override
+    public void patientAssigned(Patient patient, Bed bed) {
+        changed = true;
+    }
+
+    @Override
+    public void patientReprioritized(Patient patient) {
+        changed = true;
+    }
+
+    @Override
+    public void bedReleased(Bed bed, Patient dischargedPatient) {
+        changed = true;
+    }
+
+    @Override
+    public void bedAdded(Bed bed) {
+        changed = true;
+    }
+
+    @Override
+    public void stateReplaced() {
+        changed = true;
+    }
+}
@@ -0,0 +1,373 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import model.Patient;
+
+// Parallel, streaming parser for the CSV files written by DataPersistence.
+// A file is split into line-aligned chunks that are memory-mapped and parsed in parallel on
+// the common fork-join pool. Parsed chunks are handed to the caller in file order as soon
+// as each one is ready, so the caller can index the first records while later chunks are
+// still being parsed.
+//
+// Lines are tokenized by hand on the raw bytes. The text fields sit between the leading ID
+// and the trailing numeric fields, so a name containing commas is still read whole. Blank
+// lines are skipped; malformed lines (including patients whose criticality or arrival time
+// is outside the range the waiting queue accepts) are skipped and counted in one warning.
+public final class CsvLoader {
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_CHUNK_BYTES = 1 << 26;
+    private static final int BOUNDARY_WINDOW = 4096;
+    private static final Charset CHARSET = Charset.defaultCharset(); // as written by FileWriter
+
+    // Turns one line into a record; throws IllegalArgumentException if the line is malformed
+    private interface RowParser<T> {
+        T parse(Line line);
+    }
+
+    private CsvLoader() {
+    }
+
+    // Parse a patients file: id,name,criticality,arrivalTime,assigned,discharged
+    public static int loadPatients(File file, Consumer<List<Patient>> sink) throws IOException {
+        return load(file, 1, 4, line -> {
+            Patient patient = patient(line);
+            patient.setAssigned(line.booleanField(3));
+            patient.setDischarged(line.booleanField(4));
+            return patient;
+        }, sink);
+    }
+
+    // Parse a discharged patients file: id,name,criticality,arrivalTime,dischargeTime
+    public static int loadDischargedPatients(File file, Consumer<List<Patient>> sink) throws IOException {
+        return load(file, 1, 3, line -> {
+            Patient patient = patient(line);
+            patient.setDischargeTime(line.longField(3));
+            return patient;
+        }, sink);
+    }
+
+    // Parse the id,name,criticality,arrivalTime fields shared by both patient files
+    private static Patient patient(Line line) {
+        int criticality = line.intField(1);
+        long arrivalTime = line.longField(2);
+        if (!PatientQueue.isValidKey(criticality, arrivalTime)) {
+            throw new IllegalArgumentException("Priority out of range");
+        }
+        Patient patient = new Patient(line.intField(0), line.text(), criticality);
+        patient.setArrivalTime(arrivalTime);
+        return patient;
+    }
+
+    // Parse a beds file: id,location,type,occupied,patientId (-1 if the bed has no patient).
+    // Files written by older versions end at occupied and give -1 for every patient ID.
+    public static int loadBeds(File file, Consumer<List<SystemSnapshot.BedRecord>> sink) throws IOException {
+        return load(file, 1, 2, line -> {
+            int patientId = -1;
+            if (line.isNumber(2)) {
+                // The last field is a patient ID, not the occupied flag
+                if (!line.resplit(3)) {
+                    throw new IllegalArgumentException("Missing bed fields");
+                }
+                patientId = line.intField(3);
+            }
+            return new SystemSnapshot.BedRecord(line.intField(0), line.text(), line.stringField(1),
+                                                line.booleanField(2), patientId);
+        }, sink);
+    }
+
+    // Parse a file in chunks and deliver them in order; returns the number of records
+    private static <T> int load(File file, int leadingFields, int trailingFields, RowParser<T> parser,
+                                Consumer<List<T>> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            AtomicInteger malformed = new AtomicInteger();
+            List<ForkJoinTask<List<T>>> chunks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                chunks.add(ForkJoinPool.commonPool().submit(() -> {
+                    try {
+                        return parseChunk(channel, start, end, leadingFields, trailingFields, parser, malformed);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+
+            int records = 0;
+            try {
+                for (ForkJoinTask<List<T>> chunk : chunks) {
+                    List<T> parsed = chunk.join();
+                    records += parsed.size();
+                    sink.accept(parsed);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                for (ForkJoinTask<List<T>> chunk : chunks) {
+                    chunk.cancel(false);
+                }
+            }
+            if (malformed.get() > 0) {
+                EventLog.log(LogLevel.WARN, "Skipped {} malformed lines in {}", malformed.get(), file.getName());
+            }
+            return records;
+        }
+    }
+
+    // Split a file into chunks that start at line starts; returns the chunk boundaries
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        long chunkBytes = Math.max(MIN_CHUNK_BYTES, size / (parallelism * 4L) + 1);
+        chunkBytes = Math.min(chunkBytes, MAX_CHUNK_BYTES);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long next = chunkBytes;
+        while (next < size) {
+            long lineStart = nextLineStart(channel, next, size);
+            if (lineStart >= size) {
+                break;
+            }
+            bounds.add(lineStart);
+            next = lineStart + chunkBytes;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Find the start of the first line that begins at or after a position
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(BOUNDARY_WINDOW);
+        long offset = position - 1; // the line starts at position if the byte before it ends a line
+        while (offset < size) {
+            window.clear();
+            int read = channel.read(window, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    // Parse the lines in one chunk of the file
+    private static <T> List<T> parseChunk(FileChannel channel, long start, long end, int leadingFields,
+                                          int trailingFields, RowParser<T> parser, AtomicInteger malformed)
+            throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int length = bytes.limit();
+        List<T> records = new ArrayList<>(Math.max(16, length / 48));
+        Line line = new Line(bytes, leadingFields, trailingFields);
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && bytes.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (line.split(lineStart, lineEnd)) {
+                try {
+                    records.add(parser.parse(line));
+                } catch (IllegalArgumentException e) {
+                    malformed.incrementAndGet();
+                }
+            } else if (!line.isBlank()) {
+                malformed.incrementAndGet();
+            }
+            lineStart = lineEnd + 1;
+        }
+        return records;
+    }
+
+    // One line split into leading fields, a text field and trailing fields.
+    // Field i counts the leading fields first, then the trailing fields.
+    private static final class Line {
+        private static final int OPTIONAL_FIELDS = 1; // extra trailing fields resplit may take
+
+        private final ByteBuffer bytes;
+        private final ByteBuffer cursor; // for bulk copies of text fields
+        private final int leadingFields;
+        private final int trailingFields;
+        private final int[] fieldStart;
+        private final int[] fieldEnd;
+        private int lineStart;
+        private int lineEnd;
+        private int textStart;
+        private int textEnd;
+        private boolean blank;
+        private byte[] scratch = new byte[64];
+
+        Line(ByteBuffer bytes, int leadingFields, int trailingFields) {
+            this.bytes = bytes;
+            this.cursor = bytes.duplicate();
+            this.leadingFields = leadingFields;
+            this.trailingFields = trailingFields;
+            this.fieldStart = new int[leadingFields + trailingFields + OPTIONAL_FIELDS];
+            this.fieldEnd = new int[fieldStart.length];
+        }
+
+        // Locate the fields of the line [start, end); returns false for blank or short lines
+        boolean split(int start, int end) {
+            // Trim surrounding whitespace, including the '\r' of Windows line endings
+            while (start < end && bytes.get(start) <= ' ') {
+                start++;
+            }
+            while (end > start && bytes.get(end - 1) <= ' ') {
+                end--;
+            }
+            blank = start == end;
+            if (blank) {
+                return false;
+            }
+            lineStart = start;
+            lineEnd = end;
+            return splitFields(trailingFields);
+        }
+
+        // Split the current line again with a different number of trailing fields
+        boolean resplit(int trailing) {
+            if (leadingFields + trailing > fieldStart.length) {
+                throw new IllegalStateException("Too many trailing fields: " + trailing);
+            }
+            return splitFields(trailing);
+        }
+
+        private boolean splitFields(int trailing) {
+            int start = lineStart;
+            int end = lineEnd;
+            int fieldCount = leadingFields + trailing;
+            int position = start;
+            for (int i = 0; i < leadingFields; i++) {
+                fieldStart[i] = position;
+                while (position < end && bytes.get(position) != ',') {
+                    position++;
+                }
+                if (position == end) {
+                    return false;
+                }
+                fieldEnd[i] = position++;
+            }
+            textStart = position;
+
+            position = end;
+            for (int i = fieldCount - 1; i >= leadingFields; i--) {
+                fieldEnd[i] = position;
+                while (position > textStart && bytes.get(position - 1) != ',') {
+                    position--;
+                }
+                if (position == textStart) {
+                    return false;
+                }
+                fieldStart[i] = position;
+                position--; // skip the comma
+            }
+            textEnd = position;
+            return true;
+        }
+
+        boolean isBlank() {
+            return blank;
+        }
+
+        // Get the text field (everything between the leading and trailing fields)
+        String text() {
+            return decode(textStart, textEnd);
+        }
+
+        String stringField(int field) {
+            return decode(fieldStart[field], fieldEnd[field]);
+        }
+
+        private String decode(int start, int end) {
+            int length = end - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            cursor.position(start);
+            cursor.get(scratch, 0, length);
+            return new String(scratch, 0, length, CHARSET);
+        }
+
+        // Check if a field is a (possibly negative) decimal integer
+        boolean isNumber(int field) {
+            int position = fieldStart[field];
+            int end = fieldEnd[field];
+            if (position < end && bytes.get(position) == '-') {
+                position++;
+            }
+            if (position == end) {
+                return false;
+            }
+            for (; position < end; position++) {
+                byte b = bytes.get(position);
+                if (b < '0' || b > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int intField(int field) {
+            long value = longField(field);
+            if (value != (int) value) {
+                throw new NumberFormatException("Value out of int range");
+            }
+            return (int) value;
+        }
+
+        long longField(int field) {
+            int position = fieldStart[field];
+            int end = fieldEnd[field];
+            boolean negative = position < end && bytes.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            if (position == end || end - position > 18) {
+                throw new NumberFormatException("Bad number");
+            }
+            long value = 0;
+            for (; position < end; position++) {
+                int digit = bytes.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("Bad number");
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        // Parse a boolean the way Boolean.parseBoolean does: "true" in any case, else false
+        boolean booleanField(int field) {
+            int start = fieldStart[field];
+            if (fieldEnd[field] - start != 4) {
+                return false;
+            }
+            return (bytes.get(start) | 0x20) == 't' && (bytes.get(start + 1) | 0x20) == 'r'
+                    && (bytes.get(start + 2) | 0x20) == 'u' && (bytes.get(start + 3) | 0x20) == 'e';
+        }
+    }
+}
@@ -1,18 +1,29 @@
 package controller;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.function.Consumer;
 import model.Patient;
 import model.Bed;
 
 public class DataPersistence {
-    private static final String PATIENTS_FILE = "patients.txt";
-    private static final String BEDS_FILE = "beds.txt";
-    private static final String DISCHARGED_PATIENTS_FILE = "discharged_patients.txt";
+    static final String PATIENTS_FILE = "patients.txt";
+    static final String BEDS_FILE = "beds.txt";
+    static final String DISCHARGED_PATIENTS_FILE = "discharged_patients.txt";
+    static final String SNAPSHOT_FILE = "hospital.snap";
     
     // Save all patients to file
     public static void savePatients(List<Patient> patients) {
-        try (PrintWriter out = new PrintWriter(new FileWriter(PATIENTS_FILE))) {
+        savePatients(patients, new File(PATIENTS_FILE));
+    }
+
+    // Save all patients to a specific file
+    public static void savePatients(List<Patient> patients, File file) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
             for (Patient patient : patients) {
                 out.println(patient.getPatientId() + "," + 
                            patient.getName() + "," + 
@@ -22,89 +33,90 @@ public class DataPersistence {
                            patient.isDischarged());
             }
         } catch (IOException e) {
-            System.out.println("Error saving patients: " + e.getMessage());
+            EventLog.log(LogLevel.ERROR, "Error saving patients: {}", e.getMessage());
         }
     }
     
     // Load patients from file
     public static List<Patient> loadPatients() {
+        return loadPatients(new File(PATIENTS_FILE));
+    }
+
+    // Load patients from a specific file
+    public static List<Patient> loadPatients(File file) {
         List<Patient> patients = new ArrayList<>();
-        try (Scanner scanner = new Scanner(new File(PATIENTS_FILE))) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
-                if (line.isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 6) {
-                    int patientId = Integer.parseInt(parts[0]);
-                    String name = parts[1];
-                    int criticality = Integer.parseInt(parts[2]);
-                    long arrivalTime = Long.parseLong(parts[3]);
-                    
-                    Patient patient = new Patient(patientId, name, criticality);
-                    patient.setArrivalTime(arrivalTime);
-                    
-                    // Set assigned status
-                    patient.setAssigned(Boolean.parseBoolean(parts[4]));
-                    
-                    // Set discharged status
-                    if (parts.length > 5) {
-                        patient.setDischarged(Boolean.parseBoolean(parts[5]));
-                    }
-                    
-                    patients.add(patient);
-                }
-            }
-        } catch (FileNotFoundException e) {
-            System.out.println("No existing patient data found. Starting fresh.");
-        }
+        loadPatients(file, patients::addAll);
         return patients;
     }
+
+    // Stream patients from a file to a consumer, in file order, one parsed chunk at a time
+    public static void loadPatients(File file, Consumer<List<Patient>> sink) {
+        try {
+            CsvLoader.loadPatients(file, sink);
+        } catch (NoSuchFileException e) {
+            EventLog.log(LogLevel.INFO, "No existing patient data found. Starting fresh.");
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Error loading patients: {}", e.getMessage());
+        }
+    }
     
     // Save all beds to file
     public static void saveBeds(List<Bed> beds) {
-        try (PrintWriter out = new PrintWriter(new FileWriter(BEDS_FILE))) {
+        saveBeds(beds, new File(BEDS_FILE));
+    }
+
+    // Save all beds to a specific file
+    public static void saveBeds(List<Bed> beds, File file) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
             for (Bed bed : beds) {
                 out.println(bed.getBedId() + "," + 
                            bed.getLocation() + "," + 
                            bed.getType() + "," + 
-                           bed.isOccupied());
+                           bed.isOccupied() + "," + 
+                           (bed.getAssignedPatient() == null ? -1 : bed.getAssignedPatient().getPatientId()));
             }
         } catch (IOException e) {
-            System.out.println("Error saving beds: " + e.getMessage());
+            EventLog.log(LogLevel.ERROR, "Error saving beds: {}", e.getMessage());
         }
     }
     
     // Load beds from file
     public static List<Bed> loadBeds() {
+        return loadBeds(new File(BEDS_FILE));
+    }
+
+    // Load beds from a specific file (occupied beds are loaded without their patients)
+    public static List<Bed> loadBeds(File file) {
         List<Bed> beds = new ArrayList<>();
-        try (Scanner scanner = new Scanner(new File(BEDS_FILE))) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
-                if (line.isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 4) {
-                    int bedId = Integer.parseInt(parts[0]);
-                    String location = parts[1];
-                    String type = parts[2];
-                    boolean occupied = Boolean.parseBoolean(parts[3]);
+        for (SystemSnapshot.BedRecord record : loadBedRecords(file)) {
+            Bed bed = new Bed(record.getBedId(), record.getLocation(), record.getType());
+            bed.setOccupied(record.isOccupied());
+            beds.add(bed);
+        }
+        return beds;
+    }
 
-                    Bed bed = new Bed(bedId, location, type);
-                    bed.setOccupied(occupied);  // Use the new setter to properly set occupied status
-                    beds.add(bed);
-                }
-            }
-        } catch (FileNotFoundException e) {
-            System.out.println("No existing bed data found. Starting fresh.");
-            return beds;
+    // Load beds from a specific file along with the ID of the patient in each bed
+    public static List<SystemSnapshot.BedRecord> loadBedRecords(File file) {
+        List<SystemSnapshot.BedRecord> beds = new ArrayList<>();
+        try {
+            CsvLoader.loadBeds(file, beds::addAll);
+        } catch (NoSuchFileException e) {
+            EventLog.log(LogLevel.INFO, "No existing bed data found. Starting fresh.");
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Error loading beds: {}", e.getMessage());
         }
         return beds;
     }
     
     // Save discharged patients to file
     public static void saveDischargedPatients(List<Patient> dischargedPatients) {
-        try (PrintWriter out = new PrintWriter(new FileWriter(DISCHARGED_PATIENTS_FILE))) {
+        saveDischargedPatients(dischargedPatients, new File(DISCHARGED_PATIENTS_FILE));
+    }
+
+    // Save discharged patients to a specific file
+    public static void saveDischargedPatients(List<Patient> dischargedPatients, File file) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
             for (Patient patient : dischargedPatients) {
                 out.println(patient.getPatientId() + "," + 
                            patient.getName() + "," + 
@@ -113,36 +125,74 @@ public class DataPersistence {
                            patient.getDischargeTime());
             }
         } catch (IOException e) {
-            System.out.println("Error saving discharged patients: " + e.getMessage());
+            EventLog.log(LogLevel.ERROR, "Error saving discharged patients: {}", e.getMessage());
         }
     }
     
     // Load discharged patients from file
     public static List<Patient> loadDischargedPatients() {
+        return loadDischargedPatients(new File(DISCHARGED_PATIENTS_FILE));
+    }
+
+    // Load discharged patients from a specific file
+    public static List<Patient> loadDischargedPatients(File file) {
         List<Patient> patients = new ArrayList<>();
-        try (Scanner scanner = new Scanner(new File(DISCHARGED_PATIENTS_FILE))) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
-                if (line.isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 5) {
-                    int patientId = Integer.parseInt(parts[0]);
-                    String name = parts[1];
-                    int criticality = Integer.parseInt(parts[2]);
-                    long arrivalTime = Long.parseLong(parts[3]);
-                    long dischargeTime = Long.parseLong(parts[4]);
+        try {
+            CsvLoader.loadDischargedPatients(file, patients::addAll);
+        } catch (NoSuchFileException e) {
+            EventLog.log(LogLevel.INFO, "No discharged patient data found.");
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Error loading discharged patients: {}", e.getMessage());
+        }
+        return patients;
+    }
 
-                    Patient patient = new Patient(patientId, name, criticality);
-                    patient.setArrivalTime(arrivalTime);
-                    patient.setDischargeTime(dischargeTime); // Use the new setter to properly set discharge time
+    // Save a snapshot to the default snapshot file
+    public static boolean saveSnapshot(SystemSnapshot snapshot) {
+        return saveSnapshot(snapshot, new File(SNAPSHOT_FILE));
+    }
+
+    // Save a snapshot to a file in the SnapshotFile format. The snapshot is written to a
+    // temporary file, forced to disk and then renamed over the target, so the file always
+    // holds either the old or the new snapshot in full. Returns false if it could not be written.
+    public static boolean saveSnapshot(SystemSnapshot snapshot, File file) {
+        return saveSnapshot(snapshot, file, 0);
+    }
 
-                    patients.add(patient);
-                }
+    // Save a snapshot tagged with a DeltaStore generation
+    static boolean saveSnapshot(SystemSnapshot snapshot, File file, long generation) {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            SnapshotFile.write(snapshot, temp, generation);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
-        } catch (FileNotFoundException e) {
-            System.out.println("No discharged patient data found.");
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Error saving snapshot: {}", e.getMessage());
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    // Load the default snapshot file; returns null if there is none
+    public static SystemSnapshot loadSnapshot() {
+        return loadSnapshot(new File(SNAPSHOT_FILE));
+    }
+
+    // Load a snapshot from a file; returns null if the file is missing, truncated or corrupt
+    public static SystemSnapshot loadSnapshot(File file) {
+        if (!file.exists()) {
+            EventLog.log(LogLevel.INFO, "No snapshot {} found.", file.getName());
+            return null;
+        }
+        try {
+            return SnapshotFile.open(file).toSnapshot();
+        } catch (IOException e) {
+            EventLog.log(LogLevel.WARN, "Cannot read snapshot {}: {}", file.getName(), e.getMessage());
+            return null;
         }
-        return patients;
     }
 }
\ No newline at end of file
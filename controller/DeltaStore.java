@@ -0,0 +1,601 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import model.Bed;
+import model.Patient;
+
+// Incremental saves of the allocator state to the default snapshot file.
+// A full save writes the whole state as a base snapshot tagged with a new random
+// generation. From then on the store listens to the allocator and marks every patient and
+// bed that changes dirty, queuing it the first time; the next save encodes only the queued
+// records into a delta file for that generation and clears their marks. Save cost follows
+// the changes since the last save, not the size of the history, and every record is saved
+// once per save however it changed (a discharged patient is simply a patient record in
+// the discharged state).
+//
+// Loading reads the base and applies its deltas in sequence order. Once the deltas hold
+// more records than half the base (or 1024, whichever is more), the next save is a full
+// one again and the deltas of older generations are deleted. A base keeps the exact
+// waiting-queue order; patients that changed since are rebuilt into the queue by priority.
+//
+// Files, next to the base file F:
+//   F                  base snapshot (SnapshotFile format) with the generation in its header
+//   F.<gen>.<seq>.delta [magic][version][generation][sequence][count][CRC32] then records
+// Records: patient = 1, id, criticality, arrival, discharge, location, name length, name;
+//          bed     = 2, id, occupied, patientId (-1 if none), location and type (length, UTF-8)
+//
+// Saves are prepared on the allocator's thread and may be written on another thread, one
+// at a time and in the order they were prepared. Once a write fails, deltas are refused
+// until the next full save is written, and loading stops at the first missing or bad
+// delta, so a lost delta is never skipped over.
+public final class DeltaStore implements AllocationListener {
+    private static final int MAGIC = 0x48444C54; // "HDLT"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 28;
+    private static final int MIN_DELTA_LIMIT = 1024;
+    private static final String DELTA_SUFFIX = ".delta";
+
+    private static final byte PATIENT = 1;
+    private static final byte BED = 2;
+
+    private static final PatientLocation[] LOCATIONS = PatientLocation.values();
+
+    // A save taken on the allocator's thread; write() puts it on disk from any thread
+    public final class Save {
+        private final long generation;
+        private final SystemSnapshot base; // full save, or null for a delta
+        private final ByteBuffer delta; // encoded delta file, or null for a full save
+        private final int sequence;
+
+        private Save(long generation, SystemSnapshot base, ByteBuffer delta, int sequence) {
+            this.generation = generation;
+            this.base = base;
+            this.delta = delta;
+            this.sequence = sequence;
+        }
+
+        // Check if this is a full save
+        public boolean isFull() {
+            return base != null;
+        }
+
+        // Write the save; returns false if it could not be written, in which case the
+        // next save is a full one. A delta prepared before an earlier write failed is refused:
+        // it builds on the changes that were lost.
+        public boolean write() {
+            boolean written;
+            if (base != null) {
+                written = writeBase(this);
+            } else if (delta == null) {
+                written = true;
+            } else {
+                written = !writeFailed && writeDelta(this);
+            }
+            if (!written) {
+                writeFailed = true;
+            }
+            return written;
+        }
+    }
+
+    // A patient's state while deltas are applied on top of the base
+    private static final class PatientState {
+        SystemSnapshot.PatientRecord record;
+        PatientLocation location;
+        boolean changed; // changed by a delta, so its base position no longer applies
+
+        PatientState(SystemSnapshot.PatientRecord record, PatientLocation location) {
+            this.record = record;
+            this.location = location;
+        }
+    }
+
+    private final HospitalBedAllocator allocator;
+    private final File file;
+
+    // Allocator-thread state
+    private long generation; // generation of the current base, 0 while there is none
+    private int sequence; // sequence number of the next delta
+    private int baseRecords;
+    private int deltaRecords; // records in the deltas since the base
+    private boolean fullSaveNeeded = true;
+    private final List<Patient> dirtyPatients = new ArrayList<>();
+    private final List<Patient> dischargedPatients = new ArrayList<>(); // dirty, in discharge order
+    private final List<Bed> dirtyBeds = new ArrayList<>();
+    private ByteBuffer record = ByteBuffer.allocate(4096);
+
+    // What load() found, adopted by adoptLoaded() once the state is restored
+    private long loadedGeneration;
+    private int loadedSequence;
+    private int loadedBaseRecords;
+    private int loadedDeltaRecords;
+    private boolean loadedComplete; // false if a delta had to be skipped
+
+    private volatile boolean writeFailed; // set by a failed write, cleared once a full save is written
+
+    public DeltaStore(HospitalBedAllocator allocator, File file) {
+        this.allocator = allocator;
+        this.file = file;
+    }
+
+    // Capture a save on the allocator's thread: a delta of the records changed since the
+    // last save, or the whole state when full is set or a delta cannot be used
+    public Save prepareSave(boolean full) {
+        if (full || fullSaveNeeded || generation == 0 || writeFailed) {
+            long next;
+            do {
+                next = ThreadLocalRandom.current().nextLong();
+            } while (next == 0);
+            SystemSnapshot snapshot = allocator.captureSnapshot();
+            clearDirty();
+            generation = next;
+            sequence = 0;
+            baseRecords = snapshot.getBeds().size() + snapshot.getWaitingPatients().size()
+                    + snapshot.getAssignedPatients().size() + snapshot.getDischargedPatients().size();
+            deltaRecords = 0;
+            fullSaveNeeded = false;
+            return new Save(generation, snapshot, null, 0);
+        }
+
+        int count = dirtyBeds.size() + dischargedPatients.size();
+        for (Patient patient : dirtyPatients) {
+            if (!patient.isDischarged()) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return new Save(generation, null, null, sequence);
+        }
+        record.clear();
+        record.position(HEADER_BYTES);
+        for (Bed bed : dirtyBeds) {
+            putBed(bed);
+        }
+        for (Patient patient : dirtyPatients) {
+            if (!patient.isDischarged()) {
+                putPatient(patient);
+            }
+        }
+        for (Patient patient : dischargedPatients) {
+            putPatient(patient);
+        }
+        clearDirty();
+
+        ByteBuffer delta = ByteBuffer.allocate(record.position());
+        record.flip();
+        delta.put(record);
+        CRC32 crc = new CRC32();
+        crc.update(delta.array(), HEADER_BYTES, delta.capacity() - HEADER_BYTES);
+        delta.putInt(0, MAGIC)
+             .putInt(4, VERSION)
+             .putLong(8, generation)
+             .putInt(16, sequence)
+             .putInt(20, count)
+             .putInt(24, (int) crc.getValue());
+        delta.rewind();
+        deltaRecords += count;
+        if (deltaRecords > deltaLimit()) {
+            fullSaveNeeded = true; // Compact on the next save
+        }
+        return new Save(generation, null, delta, sequence++);
+    }
+
+    private void putPatient(Patient patient) {
+        byte[] name = patient.getName().getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(30 + name.length);
+        record.put(PATIENT)
+              .putInt(patient.getPatientId())
+              .putInt(patient.getCriticality())
+              .putLong(patient.getArrivalTime())
+              .putLong(patient.getDischargeTime())
+              .put((byte) PatientLocation.of(patient).ordinal())
+              .putInt(name.length)
+              .put(name);
+    }
+
+    private void putBed(Bed bed) {
+        byte[] location = bed.getLocation().getBytes(StandardCharsets.UTF_8);
+        byte[] type = bed.getType().getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(18 + location.length + type.length);
+        Patient patient = bed.getAssignedPatient();
+        record.put(BED)
+              .putInt(bed.getBedId())
+              .put((byte) (bed.isOccupied() ? 1 : 0))
+              .putInt(patient == null ? -1 : patient.getPatientId())
+              .putInt(location.length)
+              .put(location)
+              .putInt(type.length)
+              .put(type);
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (record.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes));
+            record.flip();
+            larger.put(record);
+            record = larger;
+        }
+    }
+
+    // Forget the queued records, clearing their marks
+    private void clearDirty() {
+        for (Patient patient : dirtyPatients) {
+            patient.clearDirty();
+        }
+        for (Patient patient : dischargedPatients) {
+            patient.clearDirty();
+        }
+        for (Bed bed : dirtyBeds) {
+            bed.clearDirty();
+        }
+        dirtyPatients.clear();
+        dischargedPatients.clear();
+        dirtyBeds.clear();
+    }
+
+    // Queue a changed patient or bed, unless there is no base to build on or a full save
+    // is due anyway (which also keeps the queues from growing past half the base)
+    private boolean tracking() {
+        if (generation == 0 || fullSaveNeeded) {
+            return false;
+        }
+        int queued = dirtyPatients.size() + dischargedPatients.size() + dirtyBeds.size();
+        if (deltaRecords + queued > deltaLimit()) {
+            fullSaveNeeded = true;
+            clearDirty();
+            return false;
+        }
+        return true;
+    }
+
+    // Records the deltas may hold before a full save is due
+    private int deltaLimit() {
+        return Math.max(MIN_DELTA_LIMIT, baseRecords / 2);
+    }
+
+    private void touch(Patient patient) {
+        if (tracking() && patient.markDirty()) {
+            dirtyPatients.add(patient);
+        }
+    }
+
+    private void touch(Bed bed) {
+        if (tracking() && bed.markDirty()) {
+            dirtyBeds.add(bed);
+        }
+    }
+
+    @Override
+    public void patientsAdmitted(List<Patient> patients) {
+        for (Patient patient : patients) {
+            touch(patient);
+        }
+    }
+
+    @Override
+    public void patientAssigned(Patient patient, Bed bed) {
+        touch(patient);
+        touch(bed);
+    }
+
+    @Override
+    public void patientReprioritized(Patient patient) {
+        touch(patient);
+    }
+
+    @Override
+    public void bedReleased(Bed bed, Patient dischargedPatient) {
+        touch(bed);
+        if (dischargedPatient != null && tracking()) {
+            // Saved in discharge order after the other patients, whether or not it was
+            // already queued as a waiting or assigned patient
+            dischargedPatient.markDirty();
+            dischargedPatients.add(dischargedPatient);
+        }
+    }
+
+    @Override
+    public void bedAdded(Bed bed) {
+        touch(bed);
+    }
+
+    @Override
+    public void stateReplaced() {
+        fullSaveNeeded = true;
+        clearDirty();
+    }
+
+    // Write a full save and delete the deltas it makes obsolete
+    private boolean writeBase(Save save) {
+        if (!DataPersistence.saveSnapshot(save.base, file, save.generation)) {
+            return false;
+        }
+        writeFailed = false;
+        File[] obsolete = listDeltas();
+        for (File delta : obsolete) {
+            if (parseGeneration(delta.getName()) != save.generation) {
+                delta.delete();
+            }
+        }
+        return true;
+    }
+
+    // Write a delta to a temporary file, force it and rename it into place
+    private boolean writeDelta(Save save) {
+        File target = deltaFile(save.generation, save.sequence);
+        File temp = new File(target.getPath() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer data = save.delta.duplicate();
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(false);
+            }
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Error saving changes: {}", e.getMessage());
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    private File deltaFile(long generation, int sequence) {
+        return new File(file.getPath() + "." + Long.toHexString(generation) + "." + sequence + DELTA_SUFFIX);
+    }
+
+    // List the delta files next to the base file
+    private File[] listDeltas() {
+        File directory = file.getAbsoluteFile().getParentFile();
+        String prefix = file.getName() + ".";
+        File[] deltas = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(DELTA_SUFFIX));
+        return deltas == null ? new File[0] : deltas;
+    }
+
+    // Parse the generation from a delta file name, or 0 if the name is malformed
+    private long parseGeneration(String name) {
+        String[] parts = name.substring(file.getName().length() + 1).split("\\.");
+        try {
+            return parts.length == 3 ? Long.parseUnsignedLong(parts[0], 16) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Parse the sequence number from a delta file name, or -1 if the name is malformed
+    private int parseSequence(String name) {
+        String[] parts = name.substring(file.getName().length() + 1).split("\\.");
+        try {
+            return parts.length == 3 ? Integer.parseInt(parts[1]) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Read the base and apply its deltas; returns null if there is no readable base.
+    // Call adoptLoaded() once the allocator holds the result, so saves continue the deltas.
+    public SystemSnapshot load() {
+        if (!file.exists()) {
+            EventLog.log(LogLevel.INFO, "No snapshot {} found.", file.getName());
+            return null;
+        }
+        SystemSnapshot base;
+        long baseGeneration;
+        try {
+            SnapshotFile snapshotFile = SnapshotFile.open(file);
+            baseGeneration = snapshotFile.getGeneration();
+            base = snapshotFile.toSnapshot();
+        } catch (IOException e) {
+            EventLog.log(LogLevel.WARN, "Cannot read snapshot {}: {}", file.getName(), e.getMessage());
+            return null;
+        }
+        List<File> deltas = new ArrayList<>();
+        if (baseGeneration != 0) {
+            for (File delta : listDeltas()) {
+                if (parseGeneration(delta.getName()) == baseGeneration && parseSequence(delta.getName()) >= 0) {
+                    deltas.add(delta);
+                }
+            }
+            deltas.sort((a, b) -> Integer.compare(parseSequence(a.getName()), parseSequence(b.getName())));
+        }
+
+        loadedGeneration = baseGeneration;
+        loadedBaseRecords = base.getBeds().size() + base.getWaitingPatients().size()
+                + base.getAssignedPatients().size() + base.getDischargedPatients().size();
+        loadedDeltaRecords = 0;
+        loadedSequence = 0;
+        loadedComplete = true;
+        if (deltas.isEmpty()) {
+            return base;
+        }
+        return applyDeltas(base, deltas);
+    }
+
+    // Rebuild the state of the base plus its deltas
+    private SystemSnapshot applyDeltas(SystemSnapshot base, List<File> deltas) {
+        IntObjectMap<PatientState> patients = new IntObjectMap<>();
+        List<PatientState> changedOrder = new ArrayList<>(); // changed patients in order of first change
+        List<PatientState> discharged = new ArrayList<>(); // patients discharged by the deltas
+        addPatients(patients, base.getWaitingPatients(), PatientLocation.WAITING);
+        addPatients(patients, base.getAssignedPatients(), PatientLocation.ASSIGNED);
+        addPatients(patients, base.getDischargedPatients(), PatientLocation.DISCHARGED);
+
+        IntObjectMap<SystemSnapshot.BedRecord> beds = new IntObjectMap<>(base.getBeds().size());
+        List<Integer> bedOrder = new ArrayList<>(base.getBeds().size());
+        IntObjectMap<Boolean> changedBeds = new IntObjectMap<>();
+        List<Integer> changedBedOrder = new ArrayList<>();
+        for (SystemSnapshot.BedRecord bed : base.getBeds()) {
+            beds.put(bed.getBedId(), bed);
+            bedOrder.add(bed.getBedId());
+        }
+
+        for (File delta : deltas) {
+            int sequence = parseSequence(delta.getName());
+            if (sequence != loadedSequence) {
+                // A delta is missing; the ones after it build on its changes
+                EventLog.log(LogLevel.WARN, "Changes {} are missing; skipping {} and later deltas", loadedSequence, delta.getName());
+                loadedComplete = false;
+                break;
+            }
+            ByteBuffer data;
+            try {
+                data = ByteBuffer.wrap(Files.readAllBytes(delta.toPath()));
+                checkDelta(data, loadedGeneration, sequence);
+            } catch (IOException e) {
+                EventLog.log(LogLevel.WARN, "Skipping unreadable changes in {}: {}", delta.getName(), e.getMessage());
+                loadedComplete = false;
+                break;
+            }
+            int count = data.getInt(20);
+            data.position(HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                if (data.get() == PATIENT) {
+                    int patientId = data.getInt();
+                    int criticality = data.getInt();
+                    long arrivalTime = data.getLong();
+                    long dischargeTime = data.getLong();
+                    PatientLocation location = LOCATIONS[data.get()];
+                    SystemSnapshot.PatientRecord patient = new SystemSnapshot.PatientRecord(
+                            patientId, getString(data), criticality, arrivalTime, dischargeTime);
+                    PatientState state = patients.get(patientId);
+                    if (state == null) {
+                        state = new PatientState(patient, location);
+                        patients.put(patientId, state);
+                    } else if (state.location == PatientLocation.DISCHARGED) {
+                        continue; // Discharge is final
+                    }
+                    if (!state.changed) {
+                        state.changed = true;
+                        changedOrder.add(state);
+                    }
+                    if (location == PatientLocation.DISCHARGED) {
+                        discharged.add(state);
+                    }
+                    state.record = patient;
+                    state.location = location;
+                } else {
+                    int bedId = data.getInt();
+                    boolean occupied = data.get() != 0;
+                    int patientId = data.getInt();
+                    String location = getString(data);
+                    String type = getString(data);
+                    if (beds.put(bedId, new SystemSnapshot.BedRecord(bedId, location, type, occupied, patientId)) == null) {
+                        bedOrder.add(bedId);
+                    }
+                    if (changedBeds.put(bedId, Boolean.TRUE) == null) {
+                        changedBedOrder.add(bedId);
+                    }
+                }
+            }
+            loadedDeltaRecords += count;
+            loadedSequence = sequence + 1;
+        }
+
+        // Waiting patients: unchanged ones keep their base heap order, changed ones follow;
+        // restoreSnapshot rebuilds the queue from this order
+        List<SystemSnapshot.PatientRecord> waiting = new ArrayList<>();
+        List<SystemSnapshot.PatientRecord> assigned = new ArrayList<>();
+        List<SystemSnapshot.PatientRecord> dischargedRecords = new ArrayList<>();
+        for (SystemSnapshot.PatientRecord patient : base.getWaitingPatients()) {
+            PatientState state = patients.get(patient.getPatientId());
+            if (!state.changed) {
+                waiting.add(state.record);
+            }
+        }
+        for (SystemSnapshot.PatientRecord patient : base.getAssignedPatients()) {
+            PatientState state = patients.get(patient.getPatientId());
+            if (!state.changed) {
+                assigned.add(state.record);
+            }
+        }
+        for (SystemSnapshot.PatientRecord patient : base.getDischargedPatients()) {
+            dischargedRecords.add(patient);
+        }
+        for (PatientState state : changedOrder) {
+            if (state.location == PatientLocation.WAITING) {
+                waiting.add(state.record);
+            } else if (state.location == PatientLocation.ASSIGNED) {
+                assigned.add(state.record);
+            }
+        }
+        for (PatientState state : discharged) {
+            dischargedRecords.add(state.record);
+        }
+
+        List<SystemSnapshot.BedRecord> bedRecords = new ArrayList<>(bedOrder.size());
+        for (int bedId : bedOrder) {
+            bedRecords.add(beds.get(bedId));
+        }
+        // Free beds: unchanged ones keep their base order, beds freed by the deltas follow
+        int[] freeBedIds = new int[bedOrder.size()];
+        int freeCount = 0;
+        for (int bedId : base.getFreeBedIds()) {
+            if (!changedBeds.containsKey(bedId)) {
+                freeBedIds[freeCount++] = bedId;
+            }
+        }
+        for (int bedId : changedBedOrder) {
+            if (!beds.get(bedId).isOccupied()) {
+                freeBedIds[freeCount++] = bedId;
+            }
+        }
+        return new SystemSnapshot(bedRecords, Arrays.copyOf(freeBedIds, freeCount), waiting, assigned,
+                                  dischargedRecords);
+    }
+
+    private static void addPatients(IntObjectMap<PatientState> patients, List<SystemSnapshot.PatientRecord> records,
+                                    PatientLocation location) {
+        for (SystemSnapshot.PatientRecord record : records) {
+            patients.put(record.getPatientId(), new PatientState(record, location));
+        }
+    }
+
+    // Check a delta's header against its file name, and its checksum
+    private static void checkDelta(ByteBuffer data, long generation, int sequence) throws IOException {
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != VERSION
+                || data.getLong(8) != generation || data.getInt(16) != sequence) {
+            throw new IOException("bad header");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), HEADER_BYTES, data.capacity() - HEADER_BYTES);
+        if ((int) crc.getValue() != data.getInt(24)) {
+            throw new IOException("checksum mismatch");
+        }
+    }
+
+    private static String getString(ByteBuffer data) {
+        byte[] bytes = new byte[data.getInt()];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Continue the loaded base and deltas; call right after restoring what load() returned
+    public void adoptLoaded() {
+        clearDirty();
+        generation = loadedGeneration;
+        sequence = loadedSequence;
+        baseRecords = loadedBaseRecords;
+        deltaRecords = loadedDeltaRecords;
+        // After a skipped delta the next save is full, so the deltas past it are never applied
+        fullSaveNeeded = generation == 0 || !loadedComplete || deltaRecords > deltaLimit();
+    }
+}
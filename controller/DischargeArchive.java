@@ -0,0 +1,509 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import model.Patient;
+
+// Append-only on-disk archive of discharged patients, the cold tier behind the allocator's
+// bounded window of recent discharges. The allocator rolls its oldest discharges in here
+// one block at a time, in discharge order, and drops them from memory once the block is on
+// disk. Only indexes stay in memory: the file position, patient ID range and discharge
+// time range of each block, patient counts per criticality, the block of each archived ID
+// and a name index over the archived patients (both built when the archive is opened).
+// ID checks never touch the disk; lookups, name searches and reports page in just the
+// blocks they need.
+//
+// Blocks go to one segment file per month of discharge (by the block's first discharge);
+// a block is never added to a month older than the newest segment, so reading the
+// segments in name order yields the discharges in order.
+//
+// Directory layout:
+//   discharged-YYYY-MM.seg  [magic][version] then blocks, each
+//                           [header][criticality counts][records]
+// Block header: record count, records length, CRC32 of counts and records, minimum and
+// maximum patient ID, minimum and maximum discharge time, number of criticality counts.
+// A record is id, criticality, arrival time, discharge time, name length and UTF-8 name.
+// Not thread-safe: use it only from the allocator's thread, except through a reader(),
+// which other threads may read while the allocator keeps archiving.
+public final class DischargeArchive implements AutoCloseable {
+    public static final String PROPERTY = "hospital.archive";
+    public static final int DEFAULT_WINDOW = 10_000;
+    public static final int BLOCK_RECORDS = 1024;
+
+    private static final int SEGMENT_MAGIC = 0x48444152; // "HDAR"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_BYTES = 8;
+    private static final int BLOCK_HEADER_BYTES = 40;
+    private static final String SEGMENT_PREFIX = "discharged-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // Sparse index entry for one block
+    private static final class Block {
+        final int segment;
+        final long position; // start of the block header
+        final int recordCount;
+        final int countsBytes; // criticality counts, after the header
+        final int recordsBytes;
+        final int crc;
+        final int minId;
+        final int maxId;
+        final long minTime;
+        final long maxTime;
+
+        Block(int segment, long position, int recordCount, int countsBytes, int recordsBytes, int crc,
+              int minId, int maxId, long minTime, long maxTime) {
+            this.segment = segment;
+            this.position = position;
+            this.recordCount = recordCount;
+            this.countsBytes = countsBytes;
+            this.recordsBytes = recordsBytes;
+            this.crc = crc;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+        }
+
+        long end() {
+            return position + BLOCK_HEADER_BYTES + countsBytes + recordsBytes;
+        }
+    }
+
+    private final File directory;
+    private final List<String> segmentNames = new ArrayList<>();
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final List<Block> blocks = new ArrayList<>();
+    private final IntIntMap blockOf = new IntIntMap(-1); // patientId -> index in blocks
+    private final PatientNameIndex names = new PatientNameIndex();
+    private int[] counts = new int[4]; // archived patients per criticality
+    private int size;
+    private int lastPatientId = -1;
+    private final CRC32 crc = new CRC32();
+
+    // The most recently read block, kept because lookups tend to hit the same block again
+    private Block cachedBlock;
+    private List<Patient> cachedPatients;
+
+    private DischargeArchive(File directory) {
+        this.directory = directory;
+    }
+
+    // Open the archive in a directory, creating it if needed. A block torn by a crash
+    // while it was appended is cut off; its patients are still in the allocator's snapshot.
+    public static DischargeArchive open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create archive directory " + directory);
+        }
+        DischargeArchive archive = new DischargeArchive(directory);
+        try {
+            String[] names = directory.list((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+                                                          && name.endsWith(SEGMENT_SUFFIX));
+            Arrays.sort(names);
+            for (String name : names) {
+                archive.openSegment(name, false);
+            }
+        } catch (IOException e) {
+            archive.close();
+            throw e;
+        }
+        EventLog.log(LogLevel.INFO, "Discharge archive opened: {} patients in {} segments",
+                     archive.size, archive.segmentNames.size());
+        return archive;
+    }
+
+    // Open a segment file, creating it if requested, and index its blocks
+    private void openSegment(String name, boolean create) throws IOException {
+        File file = new File(directory, name);
+        FileChannel channel = create
+                ? FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE)
+                : FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int segment = channels.size();
+        segmentNames.add(name);
+        channels.add(channel);
+        if (create) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+            header.putInt(SEGMENT_MAGIC).putInt(VERSION).flip();
+            writeFully(channel, header, 0);
+            channel.force(true);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        if (readFully(channel, header, 0, SEGMENT_HEADER_BYTES) < SEGMENT_HEADER_BYTES
+                || header.getInt(0) != SEGMENT_MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a discharge archive segment: " + name);
+        }
+        long size = channel.size();
+        long position = SEGMENT_HEADER_BYTES;
+        while (position < size) {
+            if (readFully(channel, header, position, BLOCK_HEADER_BYTES) < BLOCK_HEADER_BYTES) {
+                break;
+            }
+            Block block = new Block(segment, position, header.getInt(0), header.getInt(36) * 8,
+                                    header.getInt(4), header.getInt(8), header.getInt(12), header.getInt(16),
+                                    header.getLong(20), header.getLong(28));
+            if (block.recordCount <= 0 || block.recordsBytes < 0 || block.countsBytes < 0
+                    || block.end() > size) {
+                break;
+            }
+            ByteBuffer countsData = ByteBuffer.allocate(block.countsBytes);
+            readFully(channel, countsData, position + BLOCK_HEADER_BYTES, block.countsBytes);
+            // Only the last block can be torn; verify its contents before trusting it
+            if (block.end() == size && !verify(block)) {
+                break;
+            }
+            addBlock(block, countsData);
+            indexBlock(decodeBlock(block, channel, name, crc));
+            position = block.end();
+        }
+        if (position < size) {
+            EventLog.log(LogLevel.WARN, "Discharge archive {}: cut off a torn block at byte {}", name, position);
+            channel.truncate(position);
+            channel.force(true);
+        }
+    }
+
+    // Add a block to the sparse index and its criticality counts to the totals
+    private void addBlock(Block block, ByteBuffer countsData) {
+        blocks.add(block);
+        for (int i = 0; i < block.countsBytes; i += 8) {
+            int criticality = countsData.getInt(i);
+            if (criticality >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(criticality + 1, counts.length * 2));
+            }
+            counts[criticality] += countsData.getInt(i + 4);
+        }
+        size += block.recordCount;
+    }
+
+    // Record the IDs and names of the patients in the most recently added block
+    private void indexBlock(List<Patient> patients) {
+        int index = blocks.size() - 1;
+        for (Patient patient : patients) {
+            blockOf.put(patient.getPatientId(), index);
+            names.add(patient.getPatientId(), patient.getName());
+        }
+    }
+
+    // Check a block's counts and records against its CRC
+    private boolean verify(Block block) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(block.countsBytes + block.recordsBytes);
+        readFully(channels.get(block.segment), data, block.position + BLOCK_HEADER_BYTES, data.capacity());
+        crc.reset();
+        crc.update(data.array(), 0, data.capacity());
+        return (int) crc.getValue() == block.crc;
+    }
+
+    // Get the number of archived patients
+    public int size() {
+        return size;
+    }
+
+    // Get the number of archived patients with a criticality level
+    public int getCount(int criticality) {
+        return criticality >= 0 && criticality < counts.length ? counts[criticality] : 0;
+    }
+
+    // Get the ID of the most recently archived patient, or -1 if the archive is empty
+    public int getLastPatientId() {
+        if (lastPatientId == -1 && !blocks.isEmpty()) {
+            List<Patient> last = readBlock(blocks.get(blocks.size() - 1));
+            if (!last.isEmpty()) {
+                lastPatientId = last.get(last.size() - 1).getPatientId();
+            }
+        }
+        return lastPatientId;
+    }
+
+    // Append patients as one block, in discharge order, and force it to disk.
+    // Returns false (and archives nothing) if the block could not be written.
+    boolean append(List<Patient> patients) {
+        if (patients.isEmpty()) {
+            return true;
+        }
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int[] blockCounts = new int[4];
+        int recordsBytes = 0;
+        List<byte[]> names = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            minId = Math.min(minId, patient.getPatientId());
+            maxId = Math.max(maxId, patient.getPatientId());
+            minTime = Math.min(minTime, patient.getDischargeTime());
+            maxTime = Math.max(maxTime, patient.getDischargeTime());
+            if (patient.getCriticality() >= blockCounts.length) {
+                blockCounts = Arrays.copyOf(blockCounts, patient.getCriticality() + 1);
+            }
+            blockCounts[patient.getCriticality()]++;
+            byte[] name = patient.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            recordsBytes += 28 + name.length;
+        }
+        int distinct = 0;
+        for (int count : blockCounts) {
+            if (count > 0) {
+                distinct++;
+            }
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_BYTES + distinct * 8 + recordsBytes);
+        block.position(BLOCK_HEADER_BYTES);
+        for (int criticality = 0; criticality < blockCounts.length; criticality++) {
+            if (blockCounts[criticality] > 0) {
+                block.putInt(criticality).putInt(blockCounts[criticality]);
+            }
+        }
+        for (int i = 0; i < patients.size(); i++) {
+            Patient patient = patients.get(i);
+            byte[] name = names.get(i);
+            block.putInt(patient.getPatientId())
+                 .putInt(patient.getCriticality())
+                 .putLong(patient.getArrivalTime())
+                 .putLong(patient.getDischargeTime())
+                 .putInt(name.length)
+                 .put(name);
+        }
+        crc.reset();
+        crc.update(block.array(), BLOCK_HEADER_BYTES, block.capacity() - BLOCK_HEADER_BYTES);
+        int checksum = (int) crc.getValue();
+        block.putInt(0, patients.size())
+             .putInt(4, recordsBytes)
+             .putInt(8, checksum)
+             .putInt(12, minId)
+             .putInt(16, maxId)
+             .putLong(20, minTime)
+             .putLong(28, maxTime)
+             .putInt(36, distinct);
+        block.rewind();
+
+        try {
+            String name = segmentName(minTime);
+            if (segmentNames.isEmpty() || name.compareTo(segmentNames.get(segmentNames.size() - 1)) > 0) {
+                openSegment(name, true);
+            }
+            int segment = channels.size() - 1;
+            FileChannel channel = channels.get(segment);
+            long position = channel.size();
+            try {
+                writeFully(channel, block, position);
+                channel.force(false);
+            } catch (IOException e) {
+                channel.truncate(position);
+                throw e;
+            }
+            Block entry = new Block(segment, position, patients.size(), distinct * 8, recordsBytes, checksum,
+                                    minId, maxId, minTime, maxTime);
+            addBlock(entry, ByteBuffer.wrap(block.array(), BLOCK_HEADER_BYTES, distinct * 8).slice());
+            indexBlock(patients);
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Error archiving discharged patients: {}", e.getMessage());
+            return false;
+        }
+        lastPatientId = patients.get(patients.size() - 1).getPatientId();
+        return true;
+    }
+
+    // Name of the segment for a discharge time, e.g. discharged-2024-05.seg
+    private static String segmentName(long dischargeTime) {
+        YearMonth month = YearMonth.from(Instant.ofEpochMilli(Math.max(0, dischargeTime)).atZone(ZoneOffset.UTC));
+        return SEGMENT_PREFIX + month + SEGMENT_SUFFIX;
+    }
+
+    // Find an archived patient by ID, or null; reads only the block that holds it
+    public Patient find(int patientId) {
+        int index = blockOf.get(patientId);
+        if (index < 0) {
+            return null;
+        }
+        for (Patient patient : readBlock(blocks.get(index))) {
+            if (patient.getPatientId() == patientId) {
+                return patient;
+            }
+        }
+        return null;
+    }
+
+    // Check if a patient ID is archived, without reading the disk
+    public boolean contains(int patientId) {
+        return blockOf.containsKey(patientId);
+    }
+
+    // Find archived patients whose name contains the query (case-insensitive), in discharge
+    // order; only the blocks holding a match are read
+    public List<Patient> findByName(String query) {
+        IntList ids = names.search(query);
+        List<Patient> results = new ArrayList<>(ids.size());
+        // IDs come back in archive order, so the matches in one block are consecutive
+        int i = 0;
+        while (i < ids.size()) {
+            int index = blockOf.get(ids.get(i));
+            IntIntMap wanted = new IntIntMap(0);
+            while (i < ids.size() && blockOf.get(ids.get(i)) == index) {
+                wanted.put(ids.get(i++), 1);
+            }
+            for (Patient patient : readBlock(blocks.get(index))) {
+                if (wanted.containsKey(patient.getPatientId())) {
+                    results.add(patient);
+                }
+            }
+        }
+        return results;
+    }
+
+    // Pass every archived patient to a consumer, one block at a time, in discharge order
+    public void forEach(Consumer<List<Patient>> sink) {
+        forEach(Long.MIN_VALUE, Long.MAX_VALUE, sink);
+    }
+
+    // Pass the archived patients discharged in [from, to] to a consumer, one block at a
+    // time, in discharge order; blocks outside the range are not read
+    public void forEach(long from, long to, Consumer<List<Patient>> sink) {
+        for (Block block : blocks) {
+            if (block.maxTime < from || block.minTime > to) {
+                continue;
+            }
+            List<Patient> patients = readBlock(block);
+            if (block.minTime < from || block.maxTime > to) {
+                List<Patient> inRange = new ArrayList<>(patients.size());
+                for (Patient patient : patients) {
+                    if (patient.getDischargeTime() >= from && patient.getDischargeTime() <= to) {
+                        inRange.add(patient);
+                    }
+                }
+                patients = inRange;
+            }
+            if (!patients.isEmpty()) {
+                sink.accept(patients);
+            }
+        }
+    }
+
+    // A fixed view of the blocks archived when it was taken. Written blocks never change and
+    // positional reads do not disturb the archive, so a reader may be used on any thread.
+    public final class Reader {
+        private final List<Block> readerBlocks;
+        private final List<FileChannel> readerChannels;
+        private final List<String> readerSegmentNames;
+        private final int readerSize;
+        private final CRC32 readerCrc = new CRC32();
+
+        private Reader() {
+            this.readerBlocks = new ArrayList<>(blocks);
+            this.readerChannels = new ArrayList<>(channels);
+            this.readerSegmentNames = new ArrayList<>(segmentNames);
+            this.readerSize = size;
+        }
+
+        // Get the number of patients in the view
+        public int size() {
+            return readerSize;
+        }
+
+        // Pass every patient in the view to a consumer, one block at a time, in discharge order
+        public void forEach(Consumer<List<Patient>> sink) {
+            for (Block block : readerBlocks) {
+                List<Patient> patients = decodeBlock(block, readerChannels.get(block.segment),
+                                                     readerSegmentNames.get(block.segment), readerCrc);
+                if (!patients.isEmpty()) {
+                    sink.accept(Collections.unmodifiableList(patients));
+                }
+            }
+        }
+    }
+
+    // Take a view of the patients archived so far, to be read on another thread
+    public Reader reader() {
+        return new Reader();
+    }
+
+    // Read and decode one block through the cache
+    private List<Patient> readBlock(Block block) {
+        if (block != cachedBlock) {
+            List<Patient> patients = decodeBlock(block, channels.get(block.segment), segmentNames.get(block.segment), crc);
+            cachedBlock = block;
+            cachedPatients = Collections.unmodifiableList(patients);
+        }
+        return cachedPatients;
+    }
+
+    // Read and decode one block; an unreadable block is logged and read as empty
+    private static List<Patient> decodeBlock(Block block, FileChannel channel, String segmentName, CRC32 crc) {
+        List<Patient> patients = new ArrayList<>(block.recordCount);
+        try {
+            ByteBuffer data = ByteBuffer.allocate(block.countsBytes + block.recordsBytes);
+            readFully(channel, data, block.position + BLOCK_HEADER_BYTES, data.capacity());
+            crc.reset();
+            crc.update(data.array(), 0, data.capacity());
+            if ((int) crc.getValue() != block.crc) {
+                throw new IOException("checksum mismatch");
+            }
+            data.position(block.countsBytes);
+            for (int i = 0; i < block.recordCount; i++) {
+                int patientId = data.getInt();
+                int criticality = data.getInt();
+                long arrivalTime = data.getLong();
+                long dischargeTime = data.getLong();
+                byte[] name = new byte[data.getInt()];
+                data.get(name);
+                Patient patient = new Patient(patientId, new String(name, StandardCharsets.UTF_8), criticality);
+                patient.setArrivalTime(arrivalTime);
+                patient.setDischargeTime(dischargeTime);
+                patient.setDischarged(true);
+                patients.add(patient);
+            }
+        } catch (IOException | RuntimeException e) {
+            EventLog.log(LogLevel.ERROR, "Cannot read archived block in {}: {}", segmentName, e.getMessage());
+            patients.clear();
+        }
+        return patients;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // Read up to length bytes into the start of a buffer; returns the number read
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    // Close the segment files
+    @Override
+    public void close() {
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing is buffered; every block was forced when it was appended
+            }
+        }
+        channels.clear();
+        cachedBlock = null;
+        cachedPatients = null;
+    }
+}
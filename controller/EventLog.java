@@ -0,0 +1,228 @@
+package controller;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Asynchronous, level-gated log for the allocation path.
+// Callers pass a message template with {} placeholders plus raw arguments. A call below
+// the configured level returns after one comparison; otherwise the template and arguments
+// are copied into a slot of a preallocated ring buffer. A background writer thread formats
+// the messages and prints them to System.out in batches, so logging callers never build
+// strings or wait on console I/O. If the writer falls behind and the ring is full, new
+// messages are dropped and counted rather than blocking the caller. An idle writer spins
+// briefly, then parks until a producer publishes and wakes it, so it costs nothing while
+// nothing is logged.
+//
+// The level defaults to INFO and can be set with -Dhospital.log=DEBUG|INFO|WARN|ERROR|OFF.
+// Object arguments are formatted later on the writer thread, so pass immutable values
+// (names, IDs), not live Patient or Bed objects.
+public final class EventLog {
+    public static final String PROPERTY = "hospital.log";
+
+    private static final int CAPACITY = 1 << 14; // Must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_ARGS = 3;
+    private static final int IDLE_SPINS = 100;           // empty polls before the writer parks
+    private static final long FLUSH_POLL_NANOS = 100_000L;
+    private static final long FLUSH_TIMEOUT_MILLIS = 2000;
+    private static final int MAX_BATCH_CHARS = 1 << 16;
+
+    // One preallocated ring slot. Argument i is a number unless bit i of objectArgs is set.
+    private static final class Entry {
+        volatile long sequence = -1; // Sequence number of the message in this slot once published
+        LogLevel level;
+        String template;
+        int argCount;
+        int objectArgs;
+        final long[] numbers = new long[MAX_ARGS];
+        final Object[] objects = new Object[MAX_ARGS];
+    }
+
+    private static final Entry[] ring = new Entry[CAPACITY];
+    private static final AtomicLong claimed = new AtomicLong(); // Next sequence to hand to a producer
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile long consumed; // Every sequence below this has been written out
+    private static volatile boolean parking; // The writer found the ring empty and may be parked
+    private static volatile LogLevel threshold =
+            LogLevel.parse(System.getProperty(PROPERTY), LogLevel.INFO);
+    private static final Thread writer;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Entry();
+        }
+        writer = new Thread(EventLog::drainLoop, "event-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(EventLog::flush, "event-log-flush"));
+    }
+
+    private EventLog() {
+    }
+
+    // Get the current minimum level
+    public static LogLevel getLevel() {
+        return threshold;
+    }
+
+    // Set the minimum level; messages below it are discarded at the call site
+    public static void setLevel(LogLevel level) {
+        threshold = level;
+    }
+
+    // Check if messages at a level are currently logged
+    public static boolean isEnabled(LogLevel level) {
+        return level != LogLevel.OFF && level.ordinal() >= threshold.ordinal();
+    }
+
+    // Get the number of messages dropped because the ring buffer was full
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public static void log(LogLevel level, String message) {
+        if (isEnabled(level)) {
+            publish(level, message, 0, 0, 0, 0, 0, null, null, null);
+        }
+    }
+
+    public static void log(LogLevel level, String template, long arg) {
+        if (isEnabled(level)) {
+            publish(level, template, 1, 0, arg, 0, 0, null, null, null);
+        }
+    }
+
+    public static void log(LogLevel level, String template, long arg1, long arg2) {
+        if (isEnabled(level)) {
+            publish(level, template, 2, 0, arg1, arg2, 0, null, null, null);
+        }
+    }
+
+    public static void log(LogLevel level, String template, long arg1, Object arg2, long arg3) {
+        if (isEnabled(level)) {
+            publish(level, template, 3, 0b010, arg1, 0, arg3, null, arg2, null);
+        }
+    }
+
+    public static void log(LogLevel level, String template, Object arg) {
+        if (isEnabled(level)) {
+            publish(level, template, 1, 0b001, 0, 0, 0, arg, null, null);
+        }
+    }
+
+    public static void log(LogLevel level, String template, Object arg1, Object arg2) {
+        if (isEnabled(level)) {
+            publish(level, template, 2, 0b011, 0, 0, 0, arg1, arg2, null);
+        }
+    }
+
+    // Claim a ring slot, copy the message into it and publish it to the writer
+    private static void publish(LogLevel level, String template, int argCount, int objectArgs,
+                                long n0, long n1, long n2, Object o0, Object o1, Object o2) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Entry entry = ring[(int) sequence & MASK];
+        entry.level = level;
+        entry.template = template;
+        entry.argCount = argCount;
+        entry.objectArgs = objectArgs;
+        entry.numbers[0] = n0;
+        entry.numbers[1] = n1;
+        entry.numbers[2] = n2;
+        entry.objects[0] = o0;
+        entry.objects[1] = o1;
+        entry.objects[2] = o2;
+        entry.sequence = sequence; // Volatile write publishes the fields above
+        // The writer sets parking before its last look at the ring, so either it sees this
+        // message or this thread sees parking and wakes it
+        if (parking) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // Wait until every message logged before this call has been written, or a timeout passes
+    public static void flush() {
+        long target = claimed.get();
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLIS;
+        while (consumed < target && System.currentTimeMillis() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FLUSH_POLL_NANOS);
+        }
+    }
+
+    // Writer thread: format every published message and print each batch with one write
+    private static void drainLoop() {
+        StringBuilder batch = new StringBuilder(4096);
+        long reportedDrops = 0;
+        int idle = 0;
+        while (true) {
+            long sequence = consumed;
+            Entry entry = ring[(int) sequence & MASK];
+            while (entry.sequence == sequence && batch.length() < MAX_BATCH_CHARS) {
+                format(entry, batch);
+                batch.append(System.lineSeparator());
+                entry.template = null;
+                entry.objects[0] = null;
+                entry.objects[1] = null;
+                entry.objects[2] = null;
+                sequence++;
+                consumed = sequence; // Frees the slot for producers
+                entry = ring[(int) sequence & MASK];
+            }
+
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                batch.append("[log] ").append(drops - reportedDrops)
+                     .append(" messages dropped, ring buffer full").append(System.lineSeparator());
+                reportedDrops = drops;
+            }
+
+            if (batch.length() > 0) {
+                PrintStream out = System.out;
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+                idle = 0;
+            } else if (++idle < IDLE_SPINS) {
+                Thread.yield();
+            } else {
+                parking = true;
+                if (ring[(int) consumed & MASK].sequence != consumed && dropped.get() == reportedDrops) {
+                    LockSupport.park(); // Until a producer or flush() unparks us
+                }
+                parking = false;
+                idle = 0;
+            }
+        }
+    }
+
+    // Append the message with each {} replaced by the next argument
+    private static void format(Entry entry, StringBuilder out) {
+        if (entry.level == LogLevel.WARN || entry.level == LogLevel.ERROR) {
+            out.append(entry.level).append(": ");
+        }
+        String template = entry.template;
+        int arg = 0;
+        int start = 0;
+        int index;
+        while (arg < entry.argCount && (index = template.indexOf("{}", start)) >= 0) {
+            out.append(template, start, index);
+            if ((entry.objectArgs & (1 << arg)) != 0) {
+                out.append(entry.objects[arg]);
+            } else {
+                out.append(entry.numbers[arg]);
+            }
+            arg++;
+            start = index + 2;
+        }
+        out.append(template, start, template.length());
+    }
+}
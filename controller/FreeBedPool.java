@@ -0,0 +1,125 @@
+package controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.Bed;
+import model.BedType;
+
+// Pool of unoccupied beds with O(1) acquire and release.
+// Beds are handed out in the order they became free. A per-type deque, indexed by
+// BedType ID, mirrors the global order so per-type counts and listings never need a scan.
+public class FreeBedPool {
+    private ArrayDeque<Bed> freeBeds;
+    private ArrayDeque<Bed>[] freeBedsByType;
+
+    public FreeBedPool() {
+        this.freeBeds = new ArrayDeque<>();
+        this.freeBedsByType = newTypeArray(BedType.count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Bed>[] newTypeArray(int length) {
+        return (ArrayDeque<Bed>[]) new ArrayDeque<?>[length];
+    }
+
+    // Get the deque for a type, creating it on first use
+    private ArrayDeque<Bed> dequeFor(BedType type) {
+        int id = type.getId();
+        if (id >= freeBedsByType.length) {
+            freeBedsByType = Arrays.copyOf(freeBedsByType, Math.max(id + 1, BedType.count()));
+        }
+        if (freeBedsByType[id] == null) {
+            freeBedsByType[id] = new ArrayDeque<>();
+        }
+        return freeBedsByType[id];
+    }
+
+    // Get the total number of free beds
+    public int size() {
+        return freeBeds.size();
+    }
+
+    // Check if no bed is free
+    public boolean isEmpty() {
+        return freeBeds.isEmpty();
+    }
+
+    // Get the number of free beds of a type
+    public int size(BedType type) {
+        int id = type.getId();
+        return id < freeBedsByType.length && freeBedsByType[id] != null ? freeBedsByType[id].size() : 0;
+    }
+
+    // Get the number of free beds of a type name
+    public int size(String type) {
+        BedType bedType = BedType.find(type);
+        return bedType == null ? 0 : size(bedType);
+    }
+
+    // Return a bed to the pool
+    public void release(Bed bed) {
+        freeBeds.addLast(bed);
+        dequeFor(bed.getBedType()).addLast(bed);
+    }
+
+    // Get the bed that has been free the longest without removing it
+    public Bed peek() {
+        return freeBeds.peekFirst();
+    }
+
+    // Take the bed that has been free the longest, or null if none is free
+    public Bed acquire() {
+        Bed bed = freeBeds.pollFirst();
+        if (bed != null) {
+            // The globally oldest free bed is also the oldest free bed of its type
+            freeBedsByType[bed.getBedType().getId()].pollFirst();
+        }
+        return bed;
+    }
+
+    // Take a specific free bed out of the pool; returns false if it is not in the pool.
+    // O(1) for the bed acquire() would return next, otherwise a scan of the pool.
+    public boolean remove(Bed bed) {
+        if (freeBeds.peekFirst() == bed) {
+            acquire();
+            return true;
+        }
+        if (!freeBeds.remove(bed)) {
+            return false;
+        }
+        freeBedsByType[bed.getBedType().getId()].remove(bed);
+        return true;
+    }
+
+    // Get all free beds in the order they will be handed out
+    public List<Bed> getFreeBeds() {
+        return new ArrayList<>(freeBeds);
+    }
+
+    // Append the free beds of a type to a list, in the order they will be handed out
+    public void addFreeBeds(BedType type, List<Bed> results) {
+        int id = type.getId();
+        if (id < freeBedsByType.length && freeBedsByType[id] != null) {
+            results.addAll(freeBedsByType[id]);
+        }
+    }
+
+    // Get the free beds of a type in the order they will be handed out
+    public List<Bed> getFreeBeds(BedType type) {
+        List<Bed> results = new ArrayList<>(size(type));
+        addFreeBeds(type, results);
+        return results;
+    }
+
+    // Remove all beds from the pool
+    public void clear() {
+        freeBeds.clear();
+        for (ArrayDeque<Bed> beds : freeBedsByType) {
+            if (beds != null) {
+                beds.clear();
+            }
+        }
+    }
+}
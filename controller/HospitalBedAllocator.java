@@ -1,122 +1,336 @@
 package controller;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 import model.Patient;
 import model.Bed;
+import model.BedType;
 
+// Core allocation logic. Not thread-safe: use AllocationEngine when several threads submit work.
 public class HospitalBedAllocator {
-    private MinHeap patientHeap;
-    private List<Bed> availableBeds;
+    private PatientQueue patientHeap;
+    private FreeBedPool availableBeds;
     private List<Bed> allBeds;
-    private List<Patient> dischargedPatients;
+    private ArrayDeque<Patient> dischargedPatients; // in discharge order; the recent window when archiving
+    private IntObjectMap<Patient> patientIndex; // patientId -> patient, across waiting, assigned and discharged
+    private PatientNameIndex nameIndex; // trigram index over patient names
+    private CensusCounters census; // patient counts per criticality x location
+    private IntObjectMap<Bed> bedIndex; // bedId -> bed
+    private IntIntMap bedPositions; // bedId -> position in allBeds (registration order)
+    private List<List<Bed>> bedsByType; // BedType ID -> beds of that type, in registration order
+    private List<AllocationListener> listeners; // notified after every state change
+    private boolean replaying; // suppresses notifications while a journal is replayed
+    private Journal journal; // write-ahead journal, or null when not journaling
+    private DeltaStore store; // incremental saves to the default snapshot file
+    private CheckpointService checkpoints; // background writer for the store's saves, or null
+    private DischargeArchive archive; // older discharges on disk, or null when not archiving
+    private int dischargeWindow; // discharges kept in memory when archiving
 
     public HospitalBedAllocator() {
-        this.patientHeap = new MinHeap();
-        this.availableBeds = new ArrayList<>();
+        this(PatientQueueType.fromSystemProperty().create());
+    }
+
+    // Create an allocator backed by a specific waiting-queue implementation
+    public HospitalBedAllocator(PatientQueue patientQueue) {
+        this.patientHeap = patientQueue;
+        this.availableBeds = new FreeBedPool();
         this.allBeds = new ArrayList<>();
-        this.dischargedPatients = new ArrayList<>();
+        this.dischargedPatients = new ArrayDeque<>();
+        this.patientIndex = new IntObjectMap<>();
+        this.nameIndex = new PatientNameIndex();
+        this.census = new CensusCounters();
+        this.bedIndex = new IntObjectMap<>();
+        this.bedPositions = new IntIntMap(-1);
+        this.bedsByType = new ArrayList<>();
+        this.listeners = new ArrayList<>();
+        this.store = new DeltaStore(this, new File(DataPersistence.SNAPSHOT_FILE));
+        this.listeners.add(store);
+    }
+
+    // Register a listener for state changes
+    public void addListener(AllocationListener listener) {
+        listeners.add(listener);
+    }
+
+    // Unregister a listener
+    public void removeListener(AllocationListener listener) {
+        listeners.remove(listener);
     }
     
-    // Add a new bed to the system
-    public void addBed(Bed bed) {
-        allBeds.add(bed);
+    // Add a new bed to the system; returns false if the bed ID is already registered
+    public boolean addBed(Bed bed) {
+        if (bedIndex.containsKey(bed.getBedId())) {
+            EventLog.log(LogLevel.WARN, "Bed {} is already registered", bed.getBedId());
+            return false;
+        }
+        addRegisteredBed(bed);
         if (!bed.isOccupied()) {
-            availableBeds.add(bed);
             // Assign the bed to a patient if there are waiting patients
             assignBedWhenAvailable();
         }
+        return true;
     }
     
-    // Insert a new patient into the system
-    public void insertPatient(Patient patient) {
+    // Add a batch of beds (e.g. a new wing) and hand them to the highest priority waiting
+    // patients in one pass. Beds whose ID is already registered (or repeated in the batch)
+    // are skipped. Returns the number of beds added.
+    public int addBeds(Collection<Bed> beds) {
+        int added = 0;
+        for (Bed bed : beds) {
+            if (bedIndex.containsKey(bed.getBedId())) {
+                EventLog.log(LogLevel.WARN, "Bed {} is already registered", bed.getBedId());
+                continue;
+            }
+            addRegisteredBed(bed);
+            added++;
+        }
+        EventLog.log(LogLevel.INFO, "{} beds added", added);
+        matchFreeBeds();
+        return added;
+    }
+
+    // Register a new bed, put it in the free pool if unoccupied and report it
+    private void addRegisteredBed(Bed bed) {
+        registerBed(bed);
+        if (!bed.isOccupied()) {
+            availableBeds.release(bed);
+        }
+        for (AllocationListener listener : activeListeners()) {
+            listener.bedAdded(bed);
+        }
+    }
+
+    // Record a bed in the bed list, the ID registry and the per-type index
+    private void registerBed(Bed bed) {
+        bedPositions.put(bed.getBedId(), allBeds.size());
+        allBeds.add(bed);
+        bedIndex.put(bed.getBedId(), bed);
+        int typeId = bed.getBedType().getId();
+        while (bedsByType.size() <= typeId) {
+            bedsByType.add(new ArrayList<>());
+        }
+        bedsByType.get(typeId).add(bed);
+    }
+
+    // Insert a new patient into the system; returns false if the patient ID is already known
+    public boolean insertPatient(Patient patient) {
+        if (isRegistered(patient.getPatientId())) {
+            EventLog.log(LogLevel.WARN, "Patient {} is already registered", patient.getPatientId());
+            return false;
+        }
         patientHeap.insert(patient);
-        System.out.println("Patient inserted: " + patient);
+        indexPatient(patient);
+        census.add(patient.getCriticality(), PatientLocation.WAITING);
+        EventLog.log(LogLevel.INFO, "Patient inserted: P{} ({}), criticality {}",
+                     patient.getPatientId(), patient.getName(), patient.getCriticality());
+        for (AllocationListener listener : activeListeners()) {
+            listener.patientsAdmitted(Collections.singletonList(patient));
+        }
 
         // Only try to assign a bed if there are available beds
         if (!availableBeds.isEmpty()) {
             assignBedWhenAvailable();
         }
+        return true;
     }
-    
-    
+
+    // Insert a batch of new patients: the waiting queue absorbs them in one bulk build and
+    // free beds are matched once afterwards instead of after every patient.
+    // Patients whose ID is already known (or repeated in the batch) are skipped. The batch is
+    // checked before anything changes, so a patient the queue cannot order rejects all of it.
+    // Returns the number of patients inserted.
+    public int insertPatients(Collection<Patient> patients) {
+        checkQueueKeys(patients);
+        List<Patient> accepted = new ArrayList<>(patients.size());
+        IntIntMap batchIds = new IntIntMap(patients.size(), 0);
+        for (Patient patient : patients) {
+            if (isRegistered(patient.getPatientId()) || batchIds.containsKey(patient.getPatientId())) {
+                EventLog.log(LogLevel.WARN, "Patient {} is already registered", patient.getPatientId());
+                continue;
+            }
+            batchIds.put(patient.getPatientId(), 1);
+            accepted.add(patient);
+        }
+        admitBatch(accepted);
+        EventLog.log(LogLevel.INFO, "{} patients inserted", accepted.size());
+        matchFreeBeds();
+        return accepted.size();
+    }
+
+    // Throw if any patient's criticality or arrival time is outside the range the queue orders
+    private static void checkQueueKeys(Collection<Patient> patients) {
+        for (Patient patient : patients) {
+            if (!PatientQueue.isValidKey(patient.getCriticality(), patient.getArrivalTime())) {
+                throw new IllegalArgumentException("Patient " + patient.getPatientId() + " has criticality "
+                        + patient.getCriticality() + " and arrival time " + patient.getArrivalTime()
+                        + " outside the queue's range");
+            }
+        }
+    }
+
+    // Add new patients to the waiting queue in one bulk build, then index and report them.
+    // The queue rejects a bad batch unchanged, so nothing is indexed unless all of it is queued.
+    private void admitBatch(List<Patient> accepted) {
+        patientHeap.insertAll(accepted);
+        for (Patient patient : accepted) {
+            indexPatient(patient);
+            census.add(patient.getCriticality(), PatientLocation.WAITING);
+        }
+        if (!accepted.isEmpty()) {
+            for (AllocationListener listener : activeListeners()) {
+                listener.patientsAdmitted(Collections.unmodifiableList(accepted));
+            }
+        }
+    }
+
+    // Record a patient in the ID and name indexes
+    private void indexPatient(Patient patient) {
+        patientIndex.put(patient.getPatientId(), patient);
+        nameIndex.add(patient.getPatientId(), patient.getName());
+    }
+
+    // Check if a patient ID is in use, including by archived patients
+    private boolean isRegistered(int patientId) {
+        return patientIndex.containsKey(patientId) || (archive != null && archive.contains(patientId));
+    }
+
     // Auto-assign beds when a bed becomes available
     public void assignBedWhenAvailable() {
         if (!availableBeds.isEmpty() && !patientHeap.isEmpty()) {
-            Bed bed = availableBeds.get(0);
             Patient patient = patientHeap.extractMin(); // Get the highest priority patient
-            
-            if (patient != null) {
-                if (bed.assignPatient(patient)) {
-                    availableBeds.remove(0);
-                    System.out.println("Highest priority patient " + patient.getPatientId() + 
-                                     " assigned to bed " + bed.getBedId());
-                } else {
-                    // If assignment failed for some reason, put patient back in the heap
-                    patientHeap.insert(patient);
-                }
-            }
+            Bed bed = availableBeds.acquire();
+            completeAssignment(patient, bed);
+            EventLog.log(LogLevel.INFO, "Highest priority patient {} assigned to bed {}",
+                         patient.getPatientId(), bed.getBedId());
         }
     }
     
+    // Hand free beds, longest-free first, to the top waiting patients in priority order.
+    // One pass over min(free beds, waiting patients) pairs with a single summary line,
+    // instead of one assignBedWhenAvailable round per bed or patient.
+    private int matchFreeBeds() {
+        int matches = Math.min(availableBeds.size(), patientHeap.size());
+        for (int i = 0; i < matches; i++) {
+            Patient patient = patientHeap.extractMin();
+            Bed bed = availableBeds.acquire();
+            completeAssignment(patient, bed);
+        }
+        if (matches > 0) {
+            EventLog.log(LogLevel.INFO, "{} waiting patients assigned to beds", matches);
+        }
+        return matches;
+    }
+
+    // Put a patient already taken off the queue into a bed already taken from the pool
+    private void completeAssignment(Patient patient, Bed bed) {
+        bed.assignPatient(patient); // Pooled beds are never occupied
+        census.move(patient.getCriticality(), PatientLocation.WAITING, PatientLocation.ASSIGNED);
+        for (AllocationListener listener : activeListeners()) {
+            listener.patientAssigned(patient, bed);
+        }
+    }
+
     // Reassign a patient if their criticality is upgraded
     public boolean reassignPatient(int patientId, int newCriticality) {
         Patient patient = patientHeap.findPatient(patientId);
+        long now = System.currentTimeMillis();
+        if (!PatientQueue.isValidKey(newCriticality, now)) {
+            EventLog.log(LogLevel.WARN, "Criticality {} is out of range", newCriticality);
+            return false;
+        }
         if (patient != null) {
-            // Remove patient from heap
-            if (patientHeap.removePatient(patientId)) {
-                // Update patient's criticality
-                patient.setCriticality(newCriticality);
-                // Reset arrival time to current time to give priority among same criticality
-                patient.setArrivalTime(System.currentTimeMillis());
-                patient.setAssigned(false);
-                patient.setAssignedBed(null);
-
-                patientHeap.insert(patient);
+            // Reset arrival time to current time to give priority among same criticality
+            changePriority(patient, newCriticality, now);
+            EventLog.log(LogLevel.INFO, "Patient {} criticality updated to {} and reinserted into queue",
+                         patientId, newCriticality);
 
-                System.out.println("Patient " + patientId + " criticality updated to " + newCriticality +
-                                 " and reinserted into queue");
-
-                // Try to assign a bed if one is available
-                if (!availableBeds.isEmpty()) {
-                    Bed bed = availableBeds.get(0);
-                    if (bed.assignPatient(patient)) {
-                        availableBeds.remove(0);
-                        System.out.println("Reassigned patient " + patient.getPatientId() + " to bed " + bed.getBedId());
-                        return true;
-                    }
-                }
-            }
+            // Try to assign a bed if one is available
+            assignBedWhenAvailable();
+            return true;
         }
         return false;
     }
+
+    // Give a waiting patient a new criticality and arrival time and restore queue order
+    private void changePriority(Patient patient, int newCriticality, long newArrivalTime) {
+        int oldCriticality = patient.getCriticality();
+        if (newCriticality < oldCriticality) {
+            // An upgrade always raises priority, so sift the patient up in place
+            patientHeap.decreaseKey(patient.getPatientId(), newCriticality, newArrivalTime);
+        } else {
+            patient.setCriticality(newCriticality);
+            patient.setArrivalTime(newArrivalTime);
+            patientHeap.updatePatientPriority(patient);
+        }
+        census.changeCriticality(oldCriticality, newCriticality, PatientLocation.WAITING);
+        for (AllocationListener listener : activeListeners()) {
+            listener.patientReprioritized(patient);
+        }
+    }
     
     // Release a bed when a patient is discharged
     public boolean releaseBed(int bedId) {
-        for (Bed bed : allBeds) {
-            if (bed.getBedId() == bedId && bed.isOccupied()) {
-                Patient patient = bed.getAssignedPatient();
-                if (patient != null) {
-                    System.out.println("Patient " + patient.getPatientId() + " (" + patient.getName() +
-                                     ") discharged from bed " + bedId);
-                    // Add to discharged list before releasing
-                    dischargedPatients.add(patient);
-                }
+        Bed bed = bedIndex.get(bedId);
+        if (bed == null || !bed.isOccupied()) {
+            return false;
+        }
 
-                bed.releaseBed();
-                availableBeds.add(bed);
-                System.out.println("Bed " + bedId + " released");
+        Patient patient = bed.getAssignedPatient();
+        if (patient != null) {
+            EventLog.log(LogLevel.INFO, "Patient {} ({}) discharged from bed {}",
+                         patient.getPatientId(), patient.getName(), bedId);
+        }
+        completeRelease(bed, -1);
+        EventLog.log(LogLevel.INFO, "Bed {} released", bedId);
 
-                // Try to assign this bed to the highest priority waiting patient
-                assignBedWhenAvailable();
-                return true;
+        // Try to assign this bed to the highest priority waiting patient
+        assignBedWhenAvailable();
+        return true;
+    }
+
+    // Discharge the patient in an occupied bed and return the bed to the pool.
+    // A dischargeTime of -1 stamps the discharge with the current time.
+    private void completeRelease(Bed bed, long dischargeTime) {
+        Patient patient = bed.getAssignedPatient();
+        bed.releaseBed();
+        if (patient != null) {
+            if (dischargeTime != -1) {
+                patient.setDischargeTime(dischargeTime);
             }
+            dischargedPatients.add(patient);
+            census.move(patient.getCriticality(), PatientLocation.ASSIGNED, PatientLocation.DISCHARGED);
         }
-        return false;
+        availableBeds.release(bed);
+        for (AllocationListener listener : activeListeners()) {
+            listener.bedReleased(bed, patient);
+        }
+        if (archive != null && !replaying) {
+            rollDischarged();
+        }
+    }
+
+    // Get the listeners to notify, or none while a journal is being replayed
+    private List<AllocationListener> activeListeners() {
+        return replaying ? Collections.<AllocationListener>emptyList() : listeners;
+    }
+
+    // Find a bed by ID, or null if no such bed is registered
+    public Bed findBedById(int bedId) {
+        return bedIndex.get(bedId);
     }
     
     // Display the heap structure level by level
     public void displayHeapLevelByLevel() {
+        EventLog.flush(); // Let queued log messages print first
         patientHeap.displayLevelByLevel();
     }
     
@@ -129,6 +343,11 @@ public class HospitalBedAllocator {
     public int getAvailableBedCount() {
         return availableBeds.size();
     }
+
+    // Get number of available beds of a given type
+    public int getAvailableBedCount(String type) {
+        return availableBeds.size(type);
+    }
     
     // Get all waiting patients
     public List<Patient> getWaitingPatients() {
@@ -142,6 +361,7 @@ public class HospitalBedAllocator {
 
     // Display all beds with their status
     public void displayAllBeds() {
+        EventLog.flush(); // Let queued log messages print first
         System.out.println("Bed ID | Location    | Type        | Status    | Patient");
         System.out.println("-------|-------------|-------------|-----------|--------");
         for (Bed bed : allBeds) {
@@ -155,136 +375,577 @@ public class HospitalBedAllocator {
         }
     }
 
-    // Method to get discharged patients
+    // Get the discharged patients held in memory: all of them, or only the most recent
+    // ones when older discharges are archived (see forEachDischargedPatient)
     public List<Patient> getDischargedPatients() {
         return new ArrayList<>(dischargedPatients);
     }
 
+    // Get the patients discharged in [from, to], reading archived ones from disk as needed
+    public List<Patient> getDischargedPatients(long from, long to) {
+        List<Patient> results = new ArrayList<>();
+        if (archive != null) {
+            archive.forEach(from, to, results::addAll);
+        }
+        for (Patient patient : dischargedPatients) {
+            if (patient.getDischargeTime() >= from && patient.getDischargeTime() <= to) {
+                results.add(patient);
+            }
+        }
+        return results;
+    }
+
+    // Pass every discharged patient, archived ones included, to a consumer in discharge
+    // order, a block at a time, without holding the whole history in memory
+    public void forEachDischargedPatient(Consumer<List<Patient>> sink) {
+        if (archive != null) {
+            archive.forEach(sink);
+        }
+        if (!dischargedPatients.isEmpty()) {
+            sink.accept(new ArrayList<>(dischargedPatients));
+        }
+    }
+
     // Method to display discharged patients
     public void displayDischargedPatients() {
-        if (dischargedPatients.isEmpty()) {
+        EventLog.flush(); // Let queued log messages print first
+        if (getDischargedPatientCount() == 0) {
             System.out.println("No patients have been discharged yet.");
             return;
         }
         System.out.println("Discharged Patients:");
         System.out.println("ID  | Name              | Criticality | Discharge Time");
         System.out.println("----|-------------------|-------------|---------------");
-        for (Patient patient : dischargedPatients) {
-            System.out.printf("P%-3d| %-17s | %-11d | %s%n",
-                            patient.getPatientId(),
-                            patient.getName(),
-                            patient.getCriticality(),
-                            new java.util.Date(patient.getDischargeTime()));
-        }
+        forEachDischargedPatient(patients -> {
+            for (Patient patient : patients) {
+                System.out.printf("P%-3d| %-17s | %-11d | %s%n",
+                                patient.getPatientId(),
+                                patient.getName(),
+                                patient.getCriticality(),
+                                new java.util.Date(patient.getDischargeTime()));
+            }
+        });
     }
 
     // Save system data to files
     public void saveSystemData() {
-        // Save all patients (waiting list)
-        List<Patient> allPatients = getWaitingPatients();
-        // Add discharged patients
-        allPatients.addAll(getDischargedPatients());
-        DataPersistence.savePatients(allPatients);
+        if (journal != null) {
+            // Every change is already journaled; checkpoint so recovery has less to replay
+            journal.checkpoint();
+            if (journal.sync()) {
+                EventLog.log(LogLevel.INFO, "System data saved successfully!");
+            }
+            return;
+        }
 
-        // Save all beds
-        DataPersistence.saveBeds(allBeds);
+        // Only what changed since the last save is written (see DeltaStore). With a
+        // checkpoint service attached the save goes through its writer thread, so saves are
+        // still written one at a time in the order they were prepared.
+        boolean saved = checkpoints != null ? checkpoints.checkpoint().join() : store.prepareSave(false).write();
+        if (saved) {
+            EventLog.log(LogLevel.INFO, "System data saved successfully!");
+        }
+    }
 
-        // Save discharged patients separately
-        DataPersistence.saveDischargedPatients(getDischargedPatients());
+    // Route saves of the default snapshot file through a checkpoint service (null to stop)
+    void setCheckpointService(CheckpointService checkpoints) {
+        this.checkpoints = checkpoints;
+    }
 
-        System.out.println("System data saved successfully!");
+    // Get the checkpoint service writing the default snapshot file, or null
+    CheckpointService getCheckpointService() {
+        return checkpoints;
+    }
+
+    // Get the store behind saveSystemData and loadSystemData
+    public DeltaStore getStore() {
+        return store;
     }
 
     // Load system data from files
     public void loadSystemData() {
-        // Load patients
-        List<Patient> loadedPatients = DataPersistence.loadPatients();
-        patientHeap = new MinHeap();
-        for (Patient patient : loadedPatients) {
-            // Only add to heap if not discharged
-            if (!patient.isDischarged()) {
-                patientHeap.insert(patient);
+        if (journal != null) {
+            // Recover from the latest snapshot plus the journal tail
+            if (journal.reload()) {
+                EventLog.log(LogLevel.INFO, "System data loaded successfully!");
+            }
+            return;
+        }
+
+        SystemSnapshot snapshot = store.load();
+        if (snapshot == null) {
+            // No binary snapshot yet; fall back to CSV files saved by older versions
+            importCsv(new File("."));
+            return;
+        }
+        restoreSnapshot(snapshot);
+        store.adoptLoaded();
+        EventLog.log(LogLevel.INFO, "System data loaded successfully!");
+    }
+
+    // Export all data as CSV files (patients.txt, beds.txt, discharged_patients.txt) in a directory
+    public void exportCsv(File directory) {
+        // Save the current patients: waiting list in heap order, then patients in beds
+        List<Patient> allPatients = getWaitingPatients();
+        for (Bed bed : allBeds) {
+            if (bed.getAssignedPatient() != null) {
+                allPatients.add(bed.getAssignedPatient());
             }
         }
+        DataPersistence.savePatients(allPatients, new File(directory, DataPersistence.PATIENTS_FILE));
 
-        // Load beds
-        List<Bed> loadedBeds = DataPersistence.loadBeds();
+        // Save all beds with the ID of the patient in each
+        DataPersistence.saveBeds(allBeds, new File(directory, DataPersistence.BEDS_FILE));
+
+        // Save discharged patients in their own file only
+        List<Patient> discharged = new ArrayList<>(getDischargedPatientCount());
+        forEachDischargedPatient(discharged::addAll);
+        DataPersistence.saveDischargedPatients(discharged,
+                                               new File(directory, DataPersistence.DISCHARGED_PATIENTS_FILE));
+
+        EventLog.log(LogLevel.INFO, "System data exported to {}", directory.getPath());
+    }
+
+    // Replace all data with the CSV files in a directory
+    public void importCsv(File directory) {
+        // Beds and discharged patients are parsed in the background while the patients
+        // file streams into the queue and indexes chunk by chunk
+        ForkJoinTask<List<SystemSnapshot.BedRecord>> bedsTask = ForkJoinPool.commonPool().submit(
+                () -> DataPersistence.loadBedRecords(new File(directory, DataPersistence.BEDS_FILE)));
+        ForkJoinTask<List<Patient>> dischargedTask = ForkJoinPool.commonPool().submit(
+                () -> DataPersistence.loadDischargedPatients(
+                        new File(directory, DataPersistence.DISCHARGED_PATIENTS_FILE)));
+
+        patientHeap.clear();
+        patientIndex.clear();
+        nameIndex.clear();
+        census.clear();
+        List<Patient> assigned = new ArrayList<>();
+        DataPersistence.loadPatients(new File(directory, DataPersistence.PATIENTS_FILE),
+                                     loaded -> admitLoaded(loaded, assigned));
+
+        // Load beds and put the assigned patients back in them
+        List<SystemSnapshot.BedRecord> loadedBeds = bedsTask.join();
         allBeds.clear();
         availableBeds.clear();
+        bedIndex.clear();
+        bedPositions.clear();
+        bedsByType.clear();
+
+        for (SystemSnapshot.BedRecord record : loadedBeds) {
+            Bed bed = new Bed(record.getBedId(), record.getLocation(), record.getType());
+            Patient patient = record.getAssignedPatientId() < 0 ? null
+                                                                : patientIndex.get(record.getAssignedPatientId());
+            if (patient != null && patient.isAssigned() && patient.getAssignedBed() == null) {
+                bed.assignPatient(patient);
+                census.add(patient.getCriticality(), PatientLocation.ASSIGNED);
+            } else if (record.isOccupied()) {
+                bed.setOccupied(true);
+            } else {
+                availableBeds.release(bed);
+            }
+            registerBed(bed);
+        }
 
-        for (Bed bed : loadedBeds) {
-            allBeds.add(bed);
-            if (!bed.isOccupied()) {
-                availableBeds.add(bed);
+        // Patients marked assigned whose bed is missing from the beds file wait again
+        List<Patient> unplaced = new ArrayList<>();
+        for (Patient patient : assigned) {
+            if (patient.getAssignedBed() == null) {
+                patient.setAssigned(false);
+                unplaced.add(patient);
+                census.add(patient.getCriticality(), PatientLocation.WAITING);
             }
         }
+        if (!unplaced.isEmpty()) {
+            EventLog.log(LogLevel.WARN, "{} assigned patients have no bed; returned to the queue", unplaced.size());
+            patientHeap.insertAll(unplaced);
+        }
 
         // Load discharged patients
-        dischargedPatients = DataPersistence.loadDischargedPatients();
+        dischargedPatients.clear();
+        dischargedPatients.addAll(dischargedTask.join());
+        for (Patient patient : dischargedPatients) {
+            indexPatient(patient);
+            census.add(patient.getCriticality(), PatientLocation.DISCHARGED);
+        }
+        settleArchive();
 
-        System.out.println("System data loaded successfully!");
+        EventLog.log(LogLevel.INFO, "System data imported from {}", directory.getPath());
+        fireStateReplaced();
     }
 
-    // Method to find patient by ID
-    public Patient findPatientById(int patientId) {
-        // Check in waiting heap
-        for (Patient patient : patientHeap.getHeapList()) {
-            if (patient.getPatientId() == patientId) {
-                return patient;
+    // Queue and index loaded patients that are still waiting, and index the assigned ones
+    // (collected to be put back in their beds). Patients files from older versions also list
+    // discharged patients, which are loaded from their own file; repeated IDs are skipped.
+    // The chunk is checked before any index changes, so a bad chunk is rejected whole.
+    private void admitLoaded(List<Patient> loaded, List<Patient> assigned) {
+        checkQueueKeys(loaded);
+        List<Patient> waiting = new ArrayList<>(loaded.size());
+        List<Patient> placed = new ArrayList<>();
+        IntIntMap chunkIds = new IntIntMap(loaded.size(), 0);
+        for (Patient patient : loaded) {
+            int id = patient.getPatientId();
+            if (!patient.isDischarged() && !patientIndex.containsKey(id) && !chunkIds.containsKey(id)) {
+                chunkIds.put(id, 1);
+                if (patient.isAssigned()) {
+                    placed.add(patient);
+                } else {
+                    waiting.add(patient);
+                }
             }
         }
+        patientHeap.insertAll(waiting);
+        for (Patient patient : waiting) {
+            indexPatient(patient);
+            census.add(patient.getCriticality(), PatientLocation.WAITING);
+        }
+        for (Patient patient : placed) {
+            indexPatient(patient);
+        }
+        assigned.addAll(placed);
+    }
 
-        // Check in assigned patients
+    // Copy the complete state, including heap order and free-bed order
+    public SystemSnapshot captureSnapshot() {
+        List<SystemSnapshot.BedRecord> beds = new ArrayList<>(allBeds.size());
+        List<SystemSnapshot.PatientRecord> assigned = new ArrayList<>();
         for (Bed bed : allBeds) {
-            if (bed.isOccupied()) {
-                Patient patient = bed.getAssignedPatient();
-                if (patient != null && patient.getPatientId() == patientId) {
-                    return patient;
-                }
+            beds.add(SystemSnapshot.BedRecord.of(bed));
+            if (bed.getAssignedPatient() != null) {
+                assigned.add(SystemSnapshot.PatientRecord.of(bed.getAssignedPatient()));
             }
         }
 
-        // Check in discharged patients
+        List<Bed> freeBeds = availableBeds.getFreeBeds();
+        int[] freeBedIds = new int[freeBeds.size()];
+        for (int i = 0; i < freeBedIds.length; i++) {
+            freeBedIds[i] = freeBeds.get(i).getBedId();
+        }
+
+        List<SystemSnapshot.PatientRecord> waiting = new ArrayList<>(patientHeap.size());
+        for (Patient patient : patientHeap.getHeapList()) {
+            waiting.add(SystemSnapshot.PatientRecord.of(patient));
+        }
+        List<SystemSnapshot.PatientRecord> discharged = new ArrayList<>(dischargedPatients.size());
         for (Patient patient : dischargedPatients) {
-            if (patient.getPatientId() == patientId) {
-                return patient;
+            discharged.add(SystemSnapshot.PatientRecord.of(patient));
+        }
+        return new SystemSnapshot(beds, freeBedIds, waiting, assigned, discharged);
+    }
+
+    // Replace the complete state with a snapshot, without re-running any allocation
+    public void restoreSnapshot(SystemSnapshot snapshot) {
+        patientHeap.clear();
+        availableBeds.clear();
+        allBeds.clear();
+        bedIndex.clear();
+        bedPositions.clear();
+        bedsByType.clear();
+        dischargedPatients.clear();
+        patientIndex.clear();
+        nameIndex.clear();
+        census.clear();
+
+        IntObjectMap<Patient> assignedById = new IntObjectMap<>(snapshot.getAssignedPatients().size());
+        for (SystemSnapshot.PatientRecord record : snapshot.getAssignedPatients()) {
+            Patient patient = record.toPatient();
+            assignedById.put(patient.getPatientId(), patient);
+            indexPatient(patient);
+            census.add(patient.getCriticality(), PatientLocation.ASSIGNED);
+        }
+        for (SystemSnapshot.BedRecord record : snapshot.getBeds()) {
+            Bed bed = new Bed(record.getBedId(), record.getLocation(), record.getType());
+            Patient patient = assignedById.get(record.getAssignedPatientId());
+            if (patient != null) {
+                bed.assignPatient(patient);
+            } else if (record.isOccupied()) {
+                bed.setOccupied(true);
             }
+            registerBed(bed);
+        }
+        for (int bedId : snapshot.getFreeBedIds()) {
+            availableBeds.release(bedIndex.get(bedId));
         }
 
-        return null; // Patient not found
+        // Already in heap order, so the bulk build keeps every patient in its slot
+        List<Patient> waiting = new ArrayList<>(snapshot.getWaitingPatients().size());
+        for (SystemSnapshot.PatientRecord record : snapshot.getWaitingPatients()) {
+            Patient patient = record.toPatient();
+            waiting.add(patient);
+            indexPatient(patient);
+            census.add(patient.getCriticality(), PatientLocation.WAITING);
+        }
+        patientHeap.insertAll(waiting);
+
+        for (SystemSnapshot.PatientRecord record : snapshot.getDischargedPatients()) {
+            Patient patient = record.toPatient();
+            dischargedPatients.add(patient);
+            indexPatient(patient);
+            census.add(patient.getCriticality(), PatientLocation.DISCHARGED);
+        }
+        settleArchive();
+        fireStateReplaced();
     }
 
-    // Method to find patients by name
-    public List<Patient> findPatientsByName(String name) {
-        List<Patient> results = new ArrayList<>();
+    // Tell listeners the whole state changed
+    private void fireStateReplaced() {
+        for (AllocationListener listener : activeListeners()) {
+            listener.stateReplaced();
+        }
+    }
 
-        // Check in waiting heap
-        for (Patient patient : patientHeap.getHeapList()) {
-            if (patient.getName().toLowerCase().contains(name.toLowerCase())) {
-                results.add(patient);
-            }
+    // Start journaling every change to a directory. State already journaled there is
+    // recovered first; an empty directory starts from the current state.
+    public boolean openJournal(File directory) {
+        return openJournal(directory, Journal.DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    // Start journaling, taking a snapshot every snapshotInterval records
+    public boolean openJournal(File directory, int snapshotInterval) {
+        if (journal != null) {
+            return false;
+        }
+        try {
+            journal = Journal.open(directory, this, snapshotInterval);
+            return true;
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Could not open journal: {}", e.getMessage());
+            return false;
         }
+    }
 
-        // Check in assigned patients
-        for (Bed bed : allBeds) {
-            if (bed.isOccupied()) {
-                Patient patient = bed.getAssignedPatient();
-                if (patient != null && patient.getName().toLowerCase().contains(name.toLowerCase())) {
-                    results.add(patient);
-                }
+    // Flush and stop the journal, if one is open
+    public void closeJournal() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    // Get the open journal, or null when not journaling
+    public Journal getJournal() {
+        return journal;
+    }
+
+    // Start archiving discharges to a directory, keeping the default number in memory
+    public boolean openArchive(File directory) {
+        return openArchive(directory, DischargeArchive.DEFAULT_WINDOW);
+    }
+
+    // Start archiving discharges to a directory: only the most recent window discharges
+    // stay in memory and older ones move to the archive in blocks as more are discharged.
+    // Open the archive before loading data or opening a journal.
+    public boolean openArchive(File directory, int window) {
+        if (window < 0) {
+            throw new IllegalArgumentException("Discharge window must not be negative");
+        }
+        if (archive != null) {
+            return false;
+        }
+        try {
+            archive = DischargeArchive.open(directory);
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Could not open discharge archive: {}", e.getMessage());
+            return false;
+        }
+        dischargeWindow = window;
+        settleArchive();
+        return true;
+    }
+
+    // Stop archiving; discharges stay in memory from now on
+    public void closeArchive() {
+        if (archive != null) {
+            archive.close();
+            archive = null;
+        }
+    }
+
+    // Get the open discharge archive, or null when not archiving
+    public DischargeArchive getArchive() {
+        return archive;
+    }
+
+    // Bring the in-memory discharges in line with the archive after the state was replaced.
+    // A snapshot or journal written before the latest blocks were archived still lists
+    // those patients; the archive holds a prefix of the discharge order, so everything up
+    // to the last archived patient is dropped. Then the window is rolled as usual.
+    private void settleArchive() {
+        if (archive == null || replaying) {
+            return;
+        }
+        Patient lastArchived = patientIndex.get(archive.getLastPatientId());
+        if (lastArchived != null && lastArchived.isDischarged()) {
+            Patient patient;
+            do {
+                patient = dischargedPatients.removeFirst();
+                forgetDischarged(patient);
+            } while (patient != lastArchived);
+        }
+        rollDischarged();
+    }
+
+    // Move the oldest discharges beyond the window into the archive, a block at a time
+    private void rollDischarged() {
+        while (dischargedPatients.size() >= dischargeWindow + DischargeArchive.BLOCK_RECORDS) {
+            List<Patient> block = new ArrayList<>(DischargeArchive.BLOCK_RECORDS);
+            Iterator<Patient> oldest = dischargedPatients.iterator();
+            while (block.size() < DischargeArchive.BLOCK_RECORDS) {
+                block.add(oldest.next());
+            }
+            if (!archive.append(block)) {
+                return; // Keep them in memory; the next discharge tries again
+            }
+            for (Patient patient : block) {
+                dischargedPatients.removeFirst();
+                forgetDischarged(patient);
             }
         }
+    }
 
-        // Check in discharged patients
-        for (Patient patient : dischargedPatients) {
-            if (patient.getName().toLowerCase().contains(name.toLowerCase())) {
-                results.add(patient);
+    // Drop an archived discharged patient from memory
+    private void forgetDischarged(Patient patient) {
+        patientIndex.remove(patient.getPatientId());
+        nameIndex.remove(patient.getPatientId());
+        census.remove(patient.getCriticality(), PatientLocation.DISCHARGED);
+    }
+
+    // Journal replay: the methods below re-apply recorded changes exactly as they happened,
+    // without automatic bed assignment (assignments are journaled records of their own).
+    // They throw IllegalStateException if a record does not fit the current state.
+
+    // Start replaying; listeners are not notified until endReplay
+    void beginReplay() {
+        replaying = true;
+    }
+
+    // Finish replaying and tell listeners the whole state changed
+    void endReplay() {
+        replaying = false;
+        settleArchive();
+        fireStateReplaced();
+    }
+
+    void replayAdmit(List<Patient> patients) {
+        for (Patient patient : patients) {
+            if (patientIndex.containsKey(patient.getPatientId())) {
+                throw new IllegalStateException("Replayed patient " + patient.getPatientId() + " already exists");
             }
         }
+        if (patients.size() == 1) {
+            Patient patient = patients.get(0);
+            patientHeap.insert(patient);
+            indexPatient(patient);
+            census.add(patient.getCriticality(), PatientLocation.WAITING);
+            return;
+        }
+        admitBatch(patients);
+    }
+
+    void replayAssign(int patientId, int bedId) {
+        Bed bed = bedIndex.get(bedId);
+        Patient patient = patientHeap.findPatient(patientId);
+        if (bed == null || patient == null || !availableBeds.remove(bed)) {
+            throw new IllegalStateException("Cannot replay assignment of patient " + patientId + " to bed " + bedId);
+        }
+        Patient head = patientHeap.peek();
+        if (head == patient) {
+            patientHeap.extractMin();
+        } else {
+            patientHeap.removePatient(patientId);
+        }
+        completeAssignment(patient, bed);
+    }
+
+    void replayReprioritize(int patientId, int criticality, long arrivalTime) {
+        Patient patient = patientHeap.findPatient(patientId);
+        if (patient == null) {
+            throw new IllegalStateException("Cannot replay priority change of patient " + patientId);
+        }
+        changePriority(patient, criticality, arrivalTime);
+    }
+
+    void replayRelease(int bedId, long dischargeTime) {
+        Bed bed = bedIndex.get(bedId);
+        if (bed == null || !bed.isOccupied()) {
+            throw new IllegalStateException("Cannot replay release of bed " + bedId);
+        }
+        completeRelease(bed, dischargeTime);
+    }
+
+    void replayAddBed(Bed bed) {
+        if (bedIndex.containsKey(bed.getBedId())) {
+            throw new IllegalStateException("Replayed bed " + bed.getBedId() + " already exists");
+        }
+        addRegisteredBed(bed);
+    }
+
+    // Method to find patient by ID (archived patients are read back from disk)
+    public Patient findPatientById(int patientId) {
+        Patient patient = patientIndex.get(patientId);
+        if (patient == null && archive != null) {
+            patient = archive.find(patientId);
+        }
+        return patient;
+    }
+
+    // Get where a patient currently is, or null if the ID is unknown
+    public PatientLocation getPatientLocation(int patientId) {
+        Patient patient = findPatientById(patientId);
+        return patient == null ? null : PatientLocation.of(patient);
+    }
 
+    // Method to find patients by name (case-insensitive substring match); archived
+    // patients are matched in the archive's name index and listed last
+    public List<Patient> findPatientsByName(String name) {
+        IntList ids = nameIndex.search(name);
+        List<Patient> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            results.add(patientIndex.get(ids.get(i)));
+        }
+        if (archive != null) {
+            results.addAll(archive.findByName(name));
+        }
         return results;
     }
 
+    // Get the number of patients with a criticality level, across all locations
+    public int getPatientCountByCriticality(int criticality) {
+        return census.getByCriticality(criticality) + getArchivedCount(criticality);
+    }
+
+    // Get the number of patients with a criticality level in one location
+    public int getPatientCount(int criticality, PatientLocation location) {
+        int count = census.get(criticality, location);
+        return location == PatientLocation.DISCHARGED ? count + getArchivedCount(criticality) : count;
+    }
+
+    // Get the number of discharged patients
+    public int getDischargedPatientCount() {
+        return census.getByLocation(PatientLocation.DISCHARGED) + (archive == null ? 0 : archive.size());
+    }
+
+    // The census only counts patients in memory; archived ones are counted by the archive
+    private int getArchivedCount(int criticality) {
+        return archive == null ? 0 : archive.getCount(criticality);
+    }
+
+    // Get the number of assigned (bed-holding) patients
+    public int getAssignedPatientCount() {
+        return census.getByLocation(PatientLocation.ASSIGNED);
+    }
+
+    // Get the number of beds of a type
+    public int getBedCount(String type) {
+        BedType bedType = BedType.find(type);
+        return bedType == null || bedType.getId() >= bedsByType.size() ? 0 : bedsByType.get(bedType.getId()).size();
+    }
+
+    // Get the number of occupied beds of a type
+    public int getOccupiedBedCount(String type) {
+        return getBedCount(type) - availableBeds.size(type);
+    }
+
     // Method to get patients by criticality level
     public List<Patient> getPatientsByCriticality(int criticality) {
         List<Patient> results = new ArrayList<>();
@@ -306,57 +967,72 @@ public class HospitalBedAllocator {
             }
         }
 
-        // Check in discharged patients
-        for (Patient patient : dischargedPatients) {
-            if (patient.getCriticality() == criticality) {
-                results.add(patient);
+        // Check in discharged patients, archived ones included
+        forEachDischargedPatient(patients -> {
+            for (Patient patient : patients) {
+                if (patient.getCriticality() == criticality) {
+                    results.add(patient);
+                }
             }
-        }
+        });
 
         return results;
     }
 
-    // Method to find beds by type
+    // Method to find beds by type (case-insensitive substring of the type name), in
+    // registration order
     public List<Bed> findBedsByType(String type) {
+        String query = type.toLowerCase();
         List<Bed> results = new ArrayList<>();
-        for (Bed bed : allBeds) {
-            if (bed.getType().toLowerCase().contains(type.toLowerCase())) {
-                results.add(bed);
+        int matchedTypes = 0;
+        for (BedType bedType : BedType.values()) {
+            if (bedType.getId() < bedsByType.size() && bedType.matches(query)) {
+                results.addAll(bedsByType.get(bedType.getId()));
+                matchedTypes++;
             }
         }
+        if (matchedTypes > 1) {
+            sortByRegistration(results); // Each type's list is already in order
+        }
         return results;
     }
 
-    // Method to find available beds by type
+    // Method to find available beds by type (case-insensitive substring of the type name), in
+    // registration order
     public List<Bed> findAvailableBedsByType(String type) {
+        String query = type.toLowerCase();
         List<Bed> results = new ArrayList<>();
-        for (Bed bed : allBeds) {
-            if (!bed.isOccupied() && bed.getType().toLowerCase().contains(type.toLowerCase())) {
-                results.add(bed);
+        for (BedType bedType : BedType.values()) {
+            if (bedType.matches(query)) {
+                availableBeds.addFreeBeds(bedType, results);
             }
         }
+        // The pool holds free beds in hand-out order
+        sortByRegistration(results);
         return results;
     }
 
+    // Sort beds by registration order, in O(r log r) for r beds rather than a scan of all beds
+    private void sortByRegistration(List<Bed> beds) {
+        beds.sort((a, b) -> Integer.compare(bedPositions.get(a.getBedId()), bedPositions.get(b.getBedId())));
+    }
+
     // Method to get all patients for display (waiting, assigned, and discharged)
     public List<Patient> getAllPatientsForDisplay() {
-        List<Patient> allPatients = new ArrayList<>();
+        List<Patient> allPatients = new ArrayList<>(patientHeap.size() + getAssignedPatientCount()
+                                                    + dischargedPatients.size());
 
         // Add patients from the waiting heap
         allPatients.addAll(patientHeap.getHeapList());
 
-        // Add assigned patients (from beds)
+        // Add assigned patients (from beds); a patient in a bed is never also waiting
         for (Bed bed : allBeds) {
             if (bed.isOccupied() && bed.getAssignedPatient() != null) {
-                Patient patient = bed.getAssignedPatient();
-                // Only add if not already in the list
-                if (!allPatients.contains(patient)) {
-                    allPatients.add(patient);
-                }
+                allPatients.add(bed.getAssignedPatient());
             }
         }
 
-        // Add discharged patients
+        // Add discharged patients (only the recent ones when older discharges are archived)
         allPatients.addAll(dischargedPatients);
 
         return allPatients;
@@ -367,8 +1043,14 @@ public class HospitalBedAllocator {
         return new ArrayList<>(allBeds);
     }
 
+    // Get the bed at a position in registration order (0 to getAllBedsCount() - 1), for
+    // views that read the beds in place instead of copying them
+    public Bed getBedAt(int index) {
+        return allBeds.get(index);
+    }
+
     // Getter for the patient heap (for visualization)
-    public MinHeap getPatientHeap() {
+    public PatientQueue getPatientHeap() {
         return patientHeap;
     }
 }
\ No newline at end of file
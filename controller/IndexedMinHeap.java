@@ -0,0 +1,264 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import model.Patient;
+
+// Min-Heap that keeps a patientId -> heap slot index in sync on every move,
+// so lookups are O(1) and removals and priority changes are O(log n).
+public class IndexedMinHeap implements PatientQueue {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Patient[] heap;
+    private int size;
+    private IntIntMap positions; // patientId -> index in heap, -1 when absent
+
+    public IndexedMinHeap() {
+        this.heap = new Patient[INITIAL_CAPACITY];
+        this.size = 0;
+        this.positions = new IntIntMap(-1);
+    }
+
+    // Get the size of the heap
+    public int size() {
+        return size;
+    }
+
+    // Check if heap is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Get parent index
+    private int parent(int i) {
+        return (i - 1) / 2;
+    }
+
+    // Get left child index
+    private int leftChild(int i) {
+        return 2 * i + 1;
+    }
+
+    // Place a patient in a slot and record the new position
+    private void place(int index, Patient patient) {
+        heap[index] = patient;
+        positions.put(patient.getPatientId(), index);
+    }
+
+    // Insert a new patient into the heap
+    public void insert(Patient patient) {
+        if (positions.containsKey(patient.getPatientId())) {
+            throw new IllegalArgumentException("Patient " + patient.getPatientId() + " is already in the queue");
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        size++;
+        heapifyUp(size - 1, patient);
+    }
+
+    // Insert a batch of patients. The batch is appended, then either sifted up entry by entry
+    // or, when it is at least as large as the existing heap, the whole heap is rebuilt
+    // bottom-up (Floyd's method) in O(n) instead of O(n log n) worst case.
+    public void insertAll(Collection<Patient> batch) {
+        if (size + batch.size() > heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(size + batch.size(), heap.length * 2));
+        }
+        int start = size;
+        boolean appended = false;
+        try {
+            for (Patient patient : batch) {
+                if (positions.containsKey(patient.getPatientId())) {
+                    throw new IllegalArgumentException("Patient " + patient.getPatientId() + " is already in the queue");
+                }
+                place(size++, patient);
+            }
+            appended = true;
+        } finally {
+            if (!appended) {
+                // Undo the partial append so a rejected batch leaves the heap unchanged
+                while (size > start) {
+                    size--;
+                    positions.remove(heap[size].getPatientId());
+                    heap[size] = null;
+                }
+            }
+        }
+
+        if (size - start >= start) {
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                heapifyDown(i, heap[i]);
+            }
+        } else {
+            for (int i = start; i < size; i++) {
+                heapifyUp(i, heap[i]);
+            }
+        }
+    }
+
+    // Move the patient up from index until its parent is not larger, shifting parents down
+    private void heapifyUp(int index, Patient patient) {
+        while (index > 0) {
+            int parentIndex = parent(index);
+            Patient parentPatient = heap[parentIndex];
+            if (parentPatient.compareTo(patient) <= 0) {
+                break;
+            }
+            place(index, parentPatient);
+            index = parentIndex;
+        }
+        place(index, patient);
+    }
+
+    // Move the patient down from index until no child is smaller, shifting children up
+    private void heapifyDown(int index, Patient patient) {
+        int half = size / 2; // Slots at or beyond half are leaves
+        while (index < half) {
+            int smallest = leftChild(index);
+            int right = smallest + 1;
+            if (right < size && heap[right].compareTo(heap[smallest]) < 0) {
+                smallest = right;
+            }
+            if (patient.compareTo(heap[smallest]) <= 0) {
+                break;
+            }
+            place(index, heap[smallest]);
+            index = smallest;
+        }
+        place(index, patient);
+    }
+
+    // Get the minimum element (root)
+    public Patient getMin() {
+        return size == 0 ? null : heap[0];
+    }
+
+    // Get the minimum element without removing it
+    public Patient peek() {
+        return getMin();
+    }
+
+    // Extract the minimum element (root) from the heap
+    public Patient extractMin() {
+        if (size == 0) {
+            return null;
+        }
+        Patient root = heap[0];
+        removeAt(0);
+        return root;
+    }
+
+    // Remove the patient at index, filling the hole with the last element
+    private void removeAt(int index) {
+        positions.remove(heap[index].getPatientId());
+        size--;
+        Patient last = heap[size];
+        heap[size] = null;
+        if (index == size) {
+            return;
+        }
+        // The moved element may belong above or below the hole
+        if (index > 0 && heap[parent(index)].compareTo(last) > 0) {
+            heapifyUp(index, last);
+        } else {
+            heapifyDown(index, last);
+        }
+    }
+
+    // Find a patient by ID in the heap
+    public Patient findPatient(int patientId) {
+        int index = positions.get(patientId);
+        return index < 0 ? null : heap[index];
+    }
+
+    // Remove a specific patient from the heap
+    public boolean removePatient(int patientId) {
+        int index = positions.get(patientId);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    // Restore heap order in place after the patient's criticality or arrival time changed
+    public void updatePatientPriority(Patient patient) {
+        int index = positions.get(patient.getPatientId());
+        if (index < 0) {
+            insert(patient);
+            return;
+        }
+        heap[index] = patient;
+        if (index > 0 && heap[parent(index)].compareTo(patient) > 0) {
+            heapifyUp(index, patient);
+        } else {
+            heapifyDown(index, patient);
+        }
+    }
+
+    // Raise a waiting patient's priority; the new key must not be larger than the current one
+    public boolean decreaseKey(int patientId, int newCriticality, long newArrivalTime) {
+        int index = positions.get(patientId);
+        if (index < 0) {
+            return false;
+        }
+        Patient patient = heap[index];
+        if (newCriticality > patient.getCriticality()
+                || (newCriticality == patient.getCriticality() && newArrivalTime > patient.getArrivalTime())) {
+            throw new IllegalArgumentException("decreaseKey would lower the priority of patient " + patientId);
+        }
+        patient.setCriticality(newCriticality);
+        patient.setArrivalTime(newArrivalTime);
+        heapifyUp(index, patient);
+        return true;
+    }
+
+    // Remove all patients from the heap
+    public void clear() {
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+        positions.clear();
+    }
+
+    // Display the heap level by level
+    public void displayLevelByLevel() {
+        if (isEmpty()) {
+            System.out.println("Heap is empty");
+            return;
+        }
+
+        System.out.println("Heap structure level by level:");
+        int level = 0;
+        int start = 0;
+        int count = 1;
+
+        while (start < size) {
+            System.out.print("Level " + level + ": ");
+            int end = Math.min(start + count, size);
+
+            for (int i = start; i < end; i++) {
+                System.out.print(heap[i] + " | ");
+            }
+            System.out.println();
+
+            start += count;
+            count *= 2;
+            level++;
+        }
+    }
+
+    // Get a copy of the internal heap list (for display purposes)
+    public List<Patient> getHeapList() {
+        return new ArrayList<>(Arrays.asList(heap).subList(0, size));
+    }
+
+    // Get patient at specific index (for visualization)
+    public Patient getPatientAt(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        return heap[index];
+    }
+}
@@ -0,0 +1,160 @@
+package controller;
+
+import java.util.Arrays;
+
+// Open-addressing hash map from int keys to int values.
+// Keys and values are stored in plain arrays, so lookups and updates never box or allocate.
+public class IntIntMap {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private final int missingValue;
+
+    public IntIntMap(int missingValue) {
+        this(DEFAULT_CAPACITY, missingValue);
+    }
+
+    public IntIntMap(int expectedSize, int missingValue) {
+        int capacity = tableSizeFor(expectedSize);
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.size = 0;
+        this.missingValue = missingValue;
+    }
+
+    // Get the number of entries
+    public int size() {
+        return size;
+    }
+
+    // Check if the map is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Get the value for a key, or the missing value if the key is absent
+    public int get(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    // Check if the map contains a key
+    public boolean containsKey(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // Associate a value with a key, returning the previous value or the missing value
+    public int put(int key, int value) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (keys.length >> 1) + (keys.length >> 2)) { // Keep load factor under 0.75
+            resize(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    // Remove a key, returning its value or the missing value if it was absent
+    public int remove(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    // Remove all entries while keeping the allocated capacity
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    // Close the gap left by a removed entry so probe sequences stay unbroken
+    private void shiftBack(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry into the gap unless its home slot lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[newCapacity];
+        values = new int[newCapacity];
+        used = new boolean[newCapacity];
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // Spread sequential IDs across the table
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 / 4 <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
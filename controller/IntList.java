@@ -0,0 +1,59 @@
+package controller;
+
+import java.util.Arrays;
+
+// Growable list of primitive ints
+public class IntList {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(int initialCapacity) {
+        this.values = new int[Math.max(1, initialCapacity)];
+        this.size = 0;
+    }
+
+    // Get the number of values
+    public int size() {
+        return size;
+    }
+
+    // Check if the list is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Get the value at an index
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    // Get the last value; the list must not be empty
+    public int last() {
+        return get(size - 1);
+    }
+
+    // Append a value
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    // Remove all values while keeping the allocated capacity
+    public void clear() {
+        size = 0;
+    }
+
+    // Copy the values into a new array
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,661 @@
+package controller;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import model.Bed;
+import model.Patient;
+
+// Append-only write-ahead journal for a HospitalBedAllocator.
+// The journal listens to the allocator and appends one compact binary record per change
+// (admission, assignment, priority change, release, new bed). Records are encoded on the
+// allocator's thread into an in-memory batch; a writer thread appends whole batches to the
+// current segment file and fsyncs once per batch (group commit), so many changes share one
+// fsync and the allocator never waits on the disk. Call sync() to wait until everything
+// appended so far is durable.
+//
+// Every snapshotInterval records (and on checkpoint()) the allocator state is captured and
+// the journal rotates to a new segment; a background thread then writes the snapshot and
+// deletes the snapshots and segments it makes obsolete, so recovery cost stays bounded.
+// Recovery loads the newest readable snapshot and replays the segments after it, stopping
+// at the first torn or corrupt record.
+//
+// Directory layout (N is the sequence number of the first record not covered):
+//   snapshot-N.snap  state after the first N records
+//   journal-N.log    records N, N+1, ... each as [length][CRC32][payload]
+public final class Journal implements AllocationListener, AutoCloseable {
+    public static final String PROPERTY = "hospital.journal";
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 50_000;
+
+    private static final int SEGMENT_MAGIC = 0x484A4E4C; // "HJNL"
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    // Record types
+    private static final byte ADMIT = 1;
+    private static final byte ASSIGN = 2;
+    private static final byte REPRIORITIZE = 3;
+    private static final byte RELEASE = 4;
+    private static final byte BED_ADD = 5;
+
+    // Byte buffer that can hand its contents to a channel without copying
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        ByteBuffer contents() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    // Records up to a checkpoint, and the snapshot of the state right after them
+    private static final class SealedBatch {
+        final Buffer records;
+        final long sequence;
+        final SystemSnapshot snapshot;
+
+        SealedBatch(Buffer records, long sequence, SystemSnapshot snapshot) {
+            this.records = records;
+            this.sequence = sequence;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final File directory;
+    private final HospitalBedAllocator allocator;
+    private final int snapshotInterval;
+
+    // Encoding scratch space, used only on the allocator's thread
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+    private int sinceSnapshot; // records appended since the last checkpoint
+    private boolean reloading; // set while reload() replaces the allocator state
+
+    // Shared with the writer thread, guarded by lock
+    private final Object lock = new Object();
+    private Buffer pending = new Buffer(1 << 16);
+    private final List<SealedBatch> sealed = new ArrayList<>();
+    private long appended; // sequence number of the next record
+    private long durable; // every record below this is fsynced
+    private boolean failed;
+    private boolean closing;
+    private boolean writerIdle; // the writer is waiting for records
+
+    private FileChannel segment; // owned by the writer thread once it is started
+    private long nextSequence; // replay position during recovery
+    private boolean replayFailed; // recovery stopped at a record that could not be applied
+    private Thread writer;
+    private ExecutorService compactor;
+    private Thread shutdownHook;
+
+    private Journal(File directory, HospitalBedAllocator allocator, int snapshotInterval) {
+        this.directory = directory;
+        this.allocator = allocator;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // Open the journal in a directory for an allocator. If the directory already holds a
+    // journal the allocator state is replaced by the recovered state; otherwise the current
+    // state becomes the first snapshot. From then on every change is journaled.
+    // Use HospitalBedAllocator.openJournal, which keeps track of the open journal.
+    static Journal open(File directory, HospitalBedAllocator allocator, int snapshotInterval)
+            throws IOException {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + directory);
+        }
+
+        Journal journal = new Journal(directory, allocator, snapshotInterval);
+        long start;
+        if (journal.listSequences(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).isEmpty()
+                && journal.listSequences(SEGMENT_PREFIX, SEGMENT_SUFFIX).isEmpty()) {
+            if (!DataPersistence.saveSnapshot(allocator.captureSnapshot(), journal.snapshotFile(0))) {
+                throw new IOException("Cannot write the initial snapshot in " + directory);
+            }
+            start = 0;
+        } else {
+            start = journal.recover();
+            journal.deleteSegmentsFrom(start);
+            if (journal.replayFailed) {
+                // The record that failed is still in its segment and would stop every later
+                // recovery there too; make the recovered state the baseline before going on
+                EventLog.log(LogLevel.WARN, "Journal recovery stopped at record {}; writing a new snapshot", start);
+                if (!journal.compact(start, allocator.captureSnapshot())) {
+                    throw new IOException("Cannot write a journal snapshot in " + directory);
+                }
+            }
+        }
+        journal.start(start);
+        allocator.addListener(journal);
+        return journal;
+    }
+
+    // Start appending at a sequence number in a fresh segment
+    private void start(long sequence) throws IOException {
+        appended = sequence;
+        durable = sequence;
+        segment = openSegment(sequence);
+        compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        shutdownHook = new Thread(this::sync, "journal-sync");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        EventLog.log(LogLevel.INFO, "Journaling to {} from record {}", directory.getPath(), sequence);
+    }
+
+    // Get the sequence number of the next record
+    public long getAppendedCount() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    // Get the number of records known to be on disk
+    public long getDurableCount() {
+        synchronized (lock) {
+            return durable;
+        }
+    }
+
+    // Wait until every record appended so far is on disk; returns false if the journal failed
+    public boolean sync() {
+        synchronized (lock) {
+            long target = appended;
+            lock.notifyAll();
+            try {
+                while (durable < target && !failed) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return !failed;
+        }
+    }
+
+    // Capture the allocator state and start a new segment after the records so far.
+    // Must run on the allocator's thread; the snapshot is written in the background.
+    public void checkpoint() {
+        SystemSnapshot snapshot = allocator.captureSnapshot();
+        synchronized (lock) {
+            if (failed || closing) {
+                return;
+            }
+            sealed.add(new SealedBatch(pending, appended, snapshot));
+            pending = new Buffer(1 << 16);
+            lock.notifyAll();
+        }
+        sinceSnapshot = 0;
+    }
+
+    // Replace the allocator state with the state recovered from disk: the newest snapshot
+    // plus the journal after it. Must run on the allocator's thread.
+    public boolean reload() {
+        if (!sync()) {
+            return false;
+        }
+        try {
+            // Let pending compaction finish so it does not delete files being replayed
+            compactor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+
+        long recovered;
+        reloading = true;
+        try {
+            recovered = recover();
+        } catch (IOException e) {
+            EventLog.log(LogLevel.ERROR, "Journal recovery failed: {}", e.getMessage());
+            return false;
+        } finally {
+            reloading = false;
+        }
+        if (recovered != getAppendedCount()) {
+            // Some records could not be replayed; make the recovered state the new baseline
+            EventLog.log(LogLevel.WARN, "Journal recovered {} of {} records", recovered, getAppendedCount());
+            checkpoint();
+        }
+        return true;
+    }
+
+    // Stop journaling: write out everything appended so far and stop the background threads
+    @Override
+    public void close() {
+        allocator.removeListener(this);
+        synchronized (lock) {
+            closing = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+            compactor.shutdown();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            EventLog.log(LogLevel.WARN, "Error closing journal segment: {}", e.getMessage());
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; the hook is running or has run
+        }
+    }
+
+    // Listener callbacks: encode each change as one record
+
+    @Override
+    public void patientsAdmitted(List<Patient> patients) {
+        beginRecord(ADMIT, 4);
+        record.putInt(patients.size());
+        for (Patient patient : patients) {
+            byte[] name = patient.getName().getBytes(StandardCharsets.UTF_8);
+            ensureRemaining(20 + name.length);
+            record.putInt(patient.getPatientId());
+            record.putInt(patient.getCriticality());
+            record.putLong(patient.getArrivalTime());
+            putString(name);
+        }
+        appendRecord();
+    }
+
+    @Override
+    public void patientAssigned(Patient patient, Bed bed) {
+        beginRecord(ASSIGN, 8);
+        record.putInt(patient.getPatientId());
+        record.putInt(bed.getBedId());
+        appendRecord();
+    }
+
+    @Override
+    public void patientReprioritized(Patient patient) {
+        beginRecord(REPRIORITIZE, 16);
+        record.putInt(patient.getPatientId());
+        record.putInt(patient.getCriticality());
+        record.putLong(patient.getArrivalTime());
+        appendRecord();
+    }
+
+    @Override
+    public void bedReleased(Bed bed, Patient dischargedPatient) {
+        beginRecord(RELEASE, 12);
+        record.putInt(bed.getBedId());
+        record.putLong(dischargedPatient == null ? -1 : dischargedPatient.getDischargeTime());
+        appendRecord();
+    }
+
+    @Override
+    public void bedAdded(Bed bed) {
+        byte[] location = bed.getLocation().getBytes(StandardCharsets.UTF_8);
+        byte[] type = bed.getType().getBytes(StandardCharsets.UTF_8);
+        beginRecord(BED_ADD, 13 + location.length + type.length);
+        record.putInt(bed.getBedId());
+        record.put((byte) (bed.isOccupied() ? 1 : 0));
+        putString(location);
+        putString(type);
+        appendRecord();
+    }
+
+    @Override
+    public void stateReplaced() {
+        if (!reloading) {
+            // The records so far no longer lead to the current state; start over from it
+            checkpoint();
+        }
+    }
+
+    // Start encoding a record with room for a payload size; appendRecord fills in the header
+    private void beginRecord(byte type, int payloadBytes) {
+        record.clear();
+        ensureRemaining(9 + payloadBytes);
+        record.position(8); // room for [length][CRC32]
+        record.put(type);
+    }
+
+    // Make room for more bytes in the record buffer
+    private void ensureRemaining(int bytes) {
+        if (record.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes));
+            record.flip();
+            larger.put(record);
+            record = larger;
+        }
+    }
+
+    // Write a length-prefixed UTF-8 string
+    private void putString(byte[] utf8) {
+        record.putInt(utf8.length);
+        record.put(utf8);
+    }
+
+    // Add the encoded record to the pending batch and wake the writer
+    private void appendRecord() {
+        int size = record.position();
+        byte[] bytes = record.array();
+        crc.reset();
+        crc.update(bytes, 8, size - 8);
+        record.putInt(0, size - 8);
+        record.putInt(4, (int) crc.getValue());
+
+        synchronized (lock) {
+            if (failed || closing) {
+                return;
+            }
+            pending.write(bytes, 0, size);
+            appended++;
+            if (writerIdle) {
+                lock.notifyAll();
+            }
+        }
+        if (++sinceSnapshot >= snapshotInterval) {
+            checkpoint();
+        }
+    }
+
+    // Writer thread: append and fsync whatever has accumulated, one batch at a time
+    private void writeLoop() {
+        Buffer spare = new Buffer(1 << 16);
+        while (true) {
+            List<SealedBatch> batches;
+            Buffer tail;
+            long target;
+            synchronized (lock) {
+                try {
+                    while (sealed.isEmpty() && pending.size() == 0 && !closing) {
+                        writerIdle = true;
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    writerIdle = false;
+                }
+                if (sealed.isEmpty() && pending.size() == 0) {
+                    return; // Closing and nothing left to write
+                }
+                batches = new ArrayList<>(sealed);
+                sealed.clear();
+                tail = pending;
+                spare.reset();
+                pending = spare;
+                target = appended;
+            }
+
+            try {
+                for (SealedBatch batch : batches) {
+                    write(batch.records);
+                    rotate(batch.sequence, batch.snapshot);
+                }
+                write(tail);
+                segment.force(false);
+            } catch (IOException e) {
+                EventLog.log(LogLevel.ERROR, "Journal write failed, journaling stopped: {}", e.getMessage());
+                synchronized (lock) {
+                    failed = true;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            spare = tail;
+            synchronized (lock) {
+                durable = target;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Append a buffer to the current segment
+    private void write(Buffer buffer) throws IOException {
+        ByteBuffer bytes = buffer.contents();
+        while (bytes.hasRemaining()) {
+            segment.write(bytes);
+        }
+    }
+
+    // Close the current segment, start the next one at a checkpoint and compact in the background
+    private void rotate(long sequence, SystemSnapshot snapshot) throws IOException {
+        segment.force(false);
+        segment.close();
+        segment = openSegment(sequence);
+        compactor.execute(() -> compact(sequence, snapshot));
+    }
+
+    // Write a snapshot, then delete the snapshots and segments it replaces; returns false if
+    // the snapshot could not be written
+    private boolean compact(long sequence, SystemSnapshot snapshot) {
+        if (!DataPersistence.saveSnapshot(snapshot, snapshotFile(sequence))) {
+            return false; // Keep the older files; recovery still works from them
+        }
+        for (long older : listSequences(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (older < sequence) {
+                snapshotFile(older).delete();
+            }
+        }
+        for (long older : listSequences(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (older < sequence) {
+                segmentFile(older).delete();
+            }
+        }
+        EventLog.log(LogLevel.DEBUG, "Journal compacted up to record {}", sequence);
+        return true;
+    }
+
+    // Create (or truncate) the segment that starts at a sequence number and write its header
+    private FileChannel openSegment(long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(segmentFile(sequence).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(12);
+        header.putInt(SEGMENT_MAGIC).putLong(sequence).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return channel;
+    }
+
+    // Rebuild the allocator state from the newest readable snapshot and the segments after it;
+    // returns the sequence number of the first record that was not replayed
+    private long recover() throws IOException {
+        SystemSnapshot snapshot = null;
+        long start = 0;
+        List<Long> snapshots = listSequences(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = snapshots.size() - 1; i >= 0 && snapshot == null; i--) {
+            start = snapshots.get(i);
+            snapshot = DataPersistence.loadSnapshot(snapshotFile(start));
+        }
+        if (snapshot == null) {
+            start = 0;
+            snapshot = SystemSnapshot.empty();
+        }
+
+        allocator.beginReplay();
+        try {
+            allocator.restoreSnapshot(snapshot);
+            nextSequence = start;
+            replayFailed = false;
+            for (long segmentStart : listSequences(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (segmentStart > nextSequence) {
+                    EventLog.log(LogLevel.WARN, "Journal is missing records {} to {}", nextSequence, segmentStart - 1);
+                    break;
+                }
+                if (!replaySegment(segmentFile(segmentStart), segmentStart)) {
+                    replayFailed = true;
+                    break;
+                }
+            }
+        } finally {
+            allocator.endReplay();
+        }
+        EventLog.log(LogLevel.INFO, "Recovered snapshot {} and {} journal records", start, nextSequence - start);
+        return nextSequence;
+    }
+
+    // Replay the records of one segment from nextSequence on. A torn or corrupt record ends
+    // the segment (the next segment may carry on from there); returns false if a record
+    // could not be applied, which ends the whole replay.
+    private boolean replaySegment(File file, long segmentStart) throws IOException {
+        long length = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (length < 12 || in.readInt() != SEGMENT_MAGIC || in.readLong() != segmentStart) {
+                EventLog.log(LogLevel.WARN, "Ignoring journal segment {} with a bad header", file.getName());
+                return true;
+            }
+            long position = 12;
+            long sequence = segmentStart;
+            byte[] payload = new byte[256];
+            while (position + 8 <= length) {
+                int size = in.readInt();
+                int checksum = in.readInt();
+                if (size <= 0 || size > length - position - 8) {
+                    break; // Torn tail
+                }
+                if (payload.length < size) {
+                    payload = new byte[Math.max(size, payload.length * 2)];
+                }
+                in.readFully(payload, 0, size);
+                crc.reset();
+                crc.update(payload, 0, size);
+                if ((int) crc.getValue() != checksum) {
+                    EventLog.log(LogLevel.WARN, "Journal record {} is corrupt", sequence);
+                    break;
+                }
+                position += 8 + size;
+                if (sequence >= nextSequence) {
+                    try {
+                        apply(ByteBuffer.wrap(payload, 0, size));
+                    } catch (IllegalStateException | IllegalArgumentException | BufferUnderflowException
+                             | IndexOutOfBoundsException e) {
+                        EventLog.log(LogLevel.ERROR, "Cannot replay journal record {}: {}", sequence, e.getMessage());
+                        return false;
+                    }
+                    nextSequence = sequence + 1;
+                }
+                sequence++;
+            }
+        } catch (EOFException e) {
+            // Torn tail
+        }
+        return true;
+    }
+
+    // Re-apply one record to the allocator
+    private void apply(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case ADMIT: {
+                int count = in.getInt();
+                List<Patient> patients = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int patientId = in.getInt();
+                    int criticality = in.getInt();
+                    long arrivalTime = in.getLong();
+                    Patient patient = new Patient(patientId, getString(in), criticality);
+                    patient.setArrivalTime(arrivalTime);
+                    patients.add(patient);
+                }
+                allocator.replayAdmit(patients);
+                break;
+            }
+            case ASSIGN:
+                allocator.replayAssign(in.getInt(), in.getInt());
+                break;
+            case REPRIORITIZE:
+                allocator.replayReprioritize(in.getInt(), in.getInt(), in.getLong());
+                break;
+            case RELEASE:
+                allocator.replayRelease(in.getInt(), in.getLong());
+                break;
+            case BED_ADD: {
+                int bedId = in.getInt();
+                boolean occupied = in.get() != 0;
+                Bed bed = new Bed(bedId, getString(in), getString(in));
+                bed.setOccupied(occupied);
+                allocator.replayAddBed(bed);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    // Read a length-prefixed UTF-8 string
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    // Delete segments that start at or after a sequence number (left behind by an earlier
+    // crash; nothing in them was recovered)
+    private void deleteSegmentsFrom(long sequence) {
+        for (long start : listSequences(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (start > sequence) {
+                EventLog.log(LogLevel.WARN, "Discarding unrecoverable journal segment {}", start);
+            }
+            if (start >= sequence) {
+                segmentFile(start).delete();
+            }
+        }
+    }
+
+    // Get the sequence numbers in the names of the files with a prefix and suffix, ascending
+    private List<Long> listSequences(String prefix, String suffix) {
+        List<Long> sequences = new ArrayList<>();
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                    try {
+                        sequences.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                    } catch (NumberFormatException e) {
+                        // Not one of ours
+                    }
+                }
+            }
+        }
+        sequences.sort(null);
+        return sequences;
+    }
+
+    private File segmentFile(long sequence) {
+        return new File(directory, SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX);
+    }
+
+    private File snapshotFile(long sequence) {
+        return new File(directory, SNAPSHOT_PREFIX + sequence + SNAPSHOT_SUFFIX);
+    }
+}
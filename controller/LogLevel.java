@@ -0,0 +1,23 @@
+package controller;
+
+// Severity of an EventLog message, lowest first. OFF disables logging entirely.
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF;
+
+    // Parse a level name, case-insensitively; returns the fallback for null or unknown names
+    public static LogLevel parse(String name, LogLevel fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        for (LogLevel level : values()) {
+            if (level.name().equalsIgnoreCase(name.trim())) {
+                return level;
+            }
+        }
+        return fallback;
+    }
+}
@@ -1,10 +1,11 @@
 package controller;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import model.Patient;
 
-public class MinHeap {
+public class MinHeap implements PatientQueue {
     private List<Patient> heap;
 
     public MinHeap() {
@@ -49,6 +50,21 @@ public class MinHeap {
         heapifyUp(heap.size() - 1);
     }
 
+    // Insert a batch of patients. A batch at least as large as the heap is appended and the
+    // whole heap rebuilt bottom-up (Floyd's method) in O(n) instead of one sift-up per patient.
+    public void insertAll(Collection<Patient> batch) {
+        if (batch.size() < heap.size()) {
+            for (Patient patient : batch) {
+                insert(patient);
+            }
+            return;
+        }
+        heap.addAll(batch);
+        for (int i = parent(heap.size() - 1); i >= 0; i--) {
+            heapifyDown(i);
+        }
+    }
+
     // Maintain heap property by moving element up
     private void heapifyUp(int index) {
         while (index != 0 && 
@@ -145,6 +161,28 @@ public class MinHeap {
         removePatient(patient.getPatientId());
         insert(patient);
     }
+
+    // Raise a waiting patient's priority; the new key must not be larger than the current one
+    public boolean decreaseKey(int patientId, int newCriticality, long newArrivalTime) {
+        Patient patient = findPatient(patientId);
+        if (patient == null) {
+            return false;
+        }
+        if (newCriticality > patient.getCriticality()
+                || (newCriticality == patient.getCriticality() && newArrivalTime > patient.getArrivalTime())) {
+            throw new IllegalArgumentException("decreaseKey would lower the priority of patient " + patientId);
+        }
+        removePatient(patientId);
+        patient.setCriticality(newCriticality);
+        patient.setArrivalTime(newArrivalTime);
+        insert(patient);
+        return true;
+    }
+
+    // Remove all patients from the heap
+    public void clear() {
+        heap.clear();
+    }
     
     // Display the heap level by level
     public void displayLevelByLevel() {
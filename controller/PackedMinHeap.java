@@ -0,0 +1,295 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import model.Patient;
+
+// Min-Heap stored as parallel arrays. Each entry's priority is packed into one long
+// (criticality in the high bits, arrival time below), so sift operations compare
+// primitives in contiguous memory and never touch the Patient objects.
+public class PackedMinHeap implements PatientQueue {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int ARRIVAL_BITS = 48; // holds MAX_ARRIVAL_TIME; MAX_CRITICALITY fills the rest
+
+    private long[] keys;         // packed (criticality, arrivalTime) per slot
+    private int[] ids;           // patient ID per slot
+    private Patient[] patients;  // patient object per slot, moved alongside keys but never compared
+    private int size;
+    private IntIntMap positions; // patientId -> slot, -1 when absent
+
+    public PackedMinHeap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public PackedMinHeap(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.keys = new long[capacity];
+        this.ids = new int[capacity];
+        this.patients = new Patient[capacity];
+        this.size = 0;
+        this.positions = new IntIntMap(capacity, -1);
+    }
+
+    // Pack criticality and arrival time into a single sortable key
+    static long packKey(int criticality, long arrivalTime) {
+        if (criticality < 0 || criticality > MAX_CRITICALITY) {
+            throw new IllegalArgumentException("Criticality out of range: " + criticality);
+        }
+        if (arrivalTime < 0 || arrivalTime > MAX_ARRIVAL_TIME) {
+            throw new IllegalArgumentException("Arrival time out of range: " + arrivalTime);
+        }
+        return ((long) criticality << ARRIVAL_BITS) | arrivalTime;
+    }
+
+    // Get the packed key of a patient
+    static long packKey(Patient patient) {
+        return packKey(patient.getCriticality(), patient.getArrivalTime());
+    }
+
+    // Get the size of the heap
+    public int size() {
+        return size;
+    }
+
+    // Check if heap is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Write an entry into a slot and record the new position
+    private void place(int index, long key, int id, Patient patient) {
+        keys[index] = key;
+        ids[index] = id;
+        patients[index] = patient;
+        positions.put(id, index);
+    }
+
+    // Insert a new patient into the heap
+    public void insert(Patient patient) {
+        int id = patient.getPatientId();
+        if (positions.containsKey(id)) {
+            throw new IllegalArgumentException("Patient " + id + " is already in the queue");
+        }
+        long key = packKey(patient);
+        if (size == keys.length) {
+            grow(size + 1);
+        }
+        size++;
+        siftUp(size - 1, key, id, patient);
+    }
+
+    // Insert a batch of patients. The batch is appended, then either sifted up entry by entry
+    // or, when it is at least as large as the existing heap, the whole heap is rebuilt
+    // bottom-up (Floyd's method) in O(n) instead of O(n log n) worst case.
+    public void insertAll(Collection<Patient> batch) {
+        if (size + batch.size() > keys.length) {
+            grow(size + batch.size());
+        }
+        int start = size;
+        boolean appended = false;
+        try {
+            for (Patient patient : batch) {
+                int id = patient.getPatientId();
+                if (positions.containsKey(id)) {
+                    throw new IllegalArgumentException("Patient " + id + " is already in the queue");
+                }
+                place(size, packKey(patient), id, patient);
+                size++;
+            }
+            appended = true;
+        } finally {
+            if (!appended) {
+                // Undo the partial append so a rejected batch leaves the heap unchanged
+                while (size > start) {
+                    size--;
+                    positions.remove(ids[size]);
+                    patients[size] = null;
+                }
+            }
+        }
+
+        if (size - start >= start) {
+            for (int i = (size >>> 1) - 1; i >= 0; i--) {
+                siftDown(i, keys[i], ids[i], patients[i]);
+            }
+        } else {
+            for (int i = start; i < size; i++) {
+                siftUp(i, keys[i], ids[i], patients[i]);
+            }
+        }
+    }
+
+    // Grow the slot arrays to hold at least minCapacity entries
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        patients = Arrays.copyOf(patients, capacity);
+    }
+
+    // Move the entry up from index until its parent key is not larger
+    private void siftUp(int index, long key, int id, Patient patient) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            long parentKey = keys[parent];
+            if (parentKey <= key) {
+                break;
+            }
+            place(index, parentKey, ids[parent], patients[parent]);
+            index = parent;
+        }
+        place(index, key, id, patient);
+    }
+
+    // Move the entry down from index until no child key is smaller
+    private void siftDown(int index, long key, int id, Patient patient) {
+        int half = size >>> 1; // Slots at or beyond half are leaves
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) {
+                child = right;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            place(index, keys[child], ids[child], patients[child]);
+            index = child;
+        }
+        place(index, key, id, patient);
+    }
+
+    // Re-sift the entry at index in whichever direction its key requires
+    private void resift(int index, long key, int id, Patient patient) {
+        if (index > 0 && keys[(index - 1) >>> 1] > key) {
+            siftUp(index, key, id, patient);
+        } else {
+            siftDown(index, key, id, patient);
+        }
+    }
+
+    // Get the minimum element (root)
+    public Patient getMin() {
+        return size == 0 ? null : patients[0];
+    }
+
+    // Get the minimum element without removing it
+    public Patient peek() {
+        return getMin();
+    }
+
+    // Extract the minimum element (root) from the heap
+    public Patient extractMin() {
+        if (size == 0) {
+            return null;
+        }
+        Patient root = patients[0];
+        removeAt(0);
+        return root;
+    }
+
+    // Remove the entry at index, filling the hole with the last entry
+    private void removeAt(int index) {
+        positions.remove(ids[index]);
+        size--;
+        long lastKey = keys[size];
+        int lastId = ids[size];
+        Patient lastPatient = patients[size];
+        patients[size] = null;
+        if (index < size) {
+            resift(index, lastKey, lastId, lastPatient);
+        }
+    }
+
+    // Find a patient by ID in the heap
+    public Patient findPatient(int patientId) {
+        int index = positions.get(patientId);
+        return index < 0 ? null : patients[index];
+    }
+
+    // Remove a specific patient from the heap
+    public boolean removePatient(int patientId) {
+        int index = positions.get(patientId);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    // Re-pack the patient's key and restore heap order in place
+    public void updatePatientPriority(Patient patient) {
+        int index = positions.get(patient.getPatientId());
+        if (index < 0) {
+            insert(patient);
+            return;
+        }
+        resift(index, packKey(patient), patient.getPatientId(), patient);
+    }
+
+    // Raise a waiting patient's priority; the new key must not be larger than the current one
+    public boolean decreaseKey(int patientId, int newCriticality, long newArrivalTime) {
+        int index = positions.get(patientId);
+        if (index < 0) {
+            return false;
+        }
+        long newKey = packKey(newCriticality, newArrivalTime);
+        if (newKey > keys[index]) {
+            throw new IllegalArgumentException("decreaseKey would lower the priority of patient " + patientId);
+        }
+        Patient patient = patients[index];
+        patient.setCriticality(newCriticality);
+        patient.setArrivalTime(newArrivalTime);
+        siftUp(index, newKey, patientId, patient);
+        return true;
+    }
+
+    // Remove all patients from the heap
+    public void clear() {
+        Arrays.fill(patients, 0, size, null);
+        size = 0;
+        positions.clear();
+    }
+
+    // Display the heap level by level
+    public void displayLevelByLevel() {
+        if (isEmpty()) {
+            System.out.println("Heap is empty");
+            return;
+        }
+
+        System.out.println("Heap structure level by level:");
+        int level = 0;
+        int start = 0;
+        int count = 1;
+
+        while (start < size) {
+            System.out.print("Level " + level + ": ");
+            int end = Math.min(start + count, size);
+
+            for (int i = start; i < end; i++) {
+                System.out.print(patients[i] + " | ");
+            }
+            System.out.println();
+
+            start += count;
+            count *= 2;
+            level++;
+        }
+    }
+
+    // Get a copy of the internal heap list (for display purposes)
+    public List<Patient> getHeapList() {
+        return new ArrayList<>(Arrays.asList(patients).subList(0, size));
+    }
+
+    // Get patient at specific index (for visualization)
+    public Patient getPatientAt(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        return patients[index];
+    }
+}
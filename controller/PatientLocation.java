@@ -0,0 +1,29 @@
+package controller;
+
+import model.Patient;
+
+// Where a known patient currently is within the allocator
+public enum PatientLocation {
+    WAITING("Waiting"),
+    ASSIGNED("Assigned"),
+    DISCHARGED("Discharged");
+
+    private final String label;
+
+    PatientLocation(String label) {
+        this.label = label;
+    }
+
+    // Get the display label for this location
+    public String getLabel() {
+        return label;
+    }
+
+    // Derive the location from the patient's assignment and discharge flags
+    public static PatientLocation of(Patient patient) {
+        if (patient.isDischarged()) {
+            return DISCHARGED;
+        }
+        return patient.isAssigned() ? ASSIGNED : WAITING;
+    }
+}
@@ -0,0 +1,135 @@
+package controller;
+
+// Trigram inverted index over lower-cased patient names.
+// A substring query of three or more characters only verifies the patients in the
+// shortest posting list among its trigrams, instead of scanning every patient.
+public class PatientNameIndex {
+    private static final int GRAM = 3;
+
+    private IntObjectMap<String> names;     // patientId -> normalized name
+    private IntObjectMap<IntList> postings; // trigram key -> IDs of patients whose name contains it
+    private IntList ids;                    // indexed patient IDs in insertion order
+    private IntIntMap removed;              // removed IDs still listed in ids and postings (ID -> 1)
+
+    public PatientNameIndex() {
+        this.names = new IntObjectMap<>();
+        this.postings = new IntObjectMap<>();
+        this.ids = new IntList();
+        this.removed = new IntIntMap(0);
+    }
+
+    // Normalize a name or query the same way for indexing and matching
+    static String normalize(String name) {
+        return name.toLowerCase();
+    }
+
+    // Fold three characters into one key. Distinct trigrams may collide, which
+    // only adds candidates; every candidate is verified against the full name.
+    private static int trigramKey(String s, int i) {
+        return (s.charAt(i) << 20) ^ (s.charAt(i + 1) << 10) ^ s.charAt(i + 2);
+    }
+
+    // Get the number of indexed patients
+    public int size() {
+        return names.size();
+    }
+
+    // Index a patient's name; patients that are already indexed are ignored
+    public void add(int patientId, String name) {
+        if (names.containsKey(patientId)) {
+            return;
+        }
+        if (removed.containsKey(patientId)) {
+            // Still listed from before its removal; drop those entries so it is not listed twice
+            rebuild();
+        }
+        String normalized = normalize(name);
+        names.put(patientId, normalized);
+        ids.add(patientId);
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            int key = trigramKey(normalized, i);
+            IntList posting = postings.get(key);
+            if (posting == null) {
+                posting = new IntList(4);
+                postings.put(key, posting);
+            }
+            // Repeated trigrams within one name would append the same ID consecutively
+            if (posting.isEmpty() || posting.last() != patientId) {
+                posting.add(patientId);
+            }
+        }
+    }
+
+    // Remove a patient's name. The ID stays in the lists until enough IDs have been removed
+    // to make a rebuild worthwhile; searches skip it meanwhile.
+    public void remove(int patientId) {
+        if (names.remove(patientId) == null) {
+            return;
+        }
+        removed.put(patientId, 1);
+        if (removed.size() > names.size() && removed.size() >= 1024) {
+            rebuild();
+        }
+    }
+
+    // Rebuild the lists from the names still indexed
+    private void rebuild() {
+        IntObjectMap<String> current = names;
+        IntList order = ids;
+        names = new IntObjectMap<>(current.size());
+        postings = new IntObjectMap<>();
+        ids = new IntList(current.size());
+        removed.clear();
+        for (int i = 0; i < order.size(); i++) {
+            String name = current.get(order.get(i));
+            if (name != null) {
+                add(order.get(i), name); // Already normalized; normalizing again changes nothing
+            }
+        }
+    }
+
+    // Find the IDs of patients whose name contains the query (case-insensitive)
+    public IntList search(String query) {
+        String normalized = normalize(query);
+        IntList results = new IntList();
+        if (normalized.length() < GRAM) {
+            // Too short for trigrams; check every indexed name without re-normalizing it
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                String indexed = names.get(id);
+                if (indexed != null && indexed.contains(normalized)) {
+                    results.add(id);
+                }
+            }
+            return results;
+        }
+
+        // Verify candidates from the most selective trigram only
+        IntList candidates = null;
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            IntList posting = postings.get(trigramKey(normalized, i));
+            if (posting == null) {
+                return results; // Some trigram occurs in no name at all
+            }
+            if (candidates == null || posting.size() < candidates.size()) {
+                candidates = posting;
+            }
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            int id = candidates.get(i);
+            String indexed = names.get(id);
+            if (indexed != null && indexed.contains(normalized)) {
+                results.add(id);
+            }
+        }
+        return results;
+    }
+
+    // Remove all entries
+    public void clear() {
+        names.clear();
+        postings.clear();
+        ids.clear();
+        removed.clear();
+    }
+}
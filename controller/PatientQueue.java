@@ -0,0 +1,64 @@
+package controller;
+
+import java.util.Collection;
+import java.util.List;
+import model.Patient;
+
+// Common API for the waiting-patient priority queue used by HospitalBedAllocator.
+// Patients are ordered by criticality first, then by arrival time (see Patient.compareTo).
+// Every implementation accepts criticality 0..MAX_CRITICALITY and arrival times 0..MAX_ARRIVAL_TIME.
+public interface PatientQueue {
+    int MAX_CRITICALITY = (1 << 15) - 1;
+    long MAX_ARRIVAL_TIME = (1L << 48) - 1;
+
+    // Check if a criticality and arrival time are in the range every queue accepts
+    static boolean isValidKey(int criticality, long arrivalTime) {
+        return criticality >= 0 && criticality <= MAX_CRITICALITY
+                && arrivalTime >= 0 && arrivalTime <= MAX_ARRIVAL_TIME;
+    }
+
+    // Get the number of waiting patients
+    int size();
+
+    // Check if the queue is empty
+    boolean isEmpty();
+
+    // Insert a new patient into the queue
+    void insert(Patient patient);
+
+    // Insert a batch of new patients; large batches are built into the queue in one pass
+    void insertAll(Collection<Patient> batch);
+
+    // Get the highest priority patient without removing it
+    Patient getMin();
+
+    // Get the highest priority patient without removing it
+    Patient peek();
+
+    // Remove and return the highest priority patient
+    Patient extractMin();
+
+    // Find a waiting patient by ID
+    Patient findPatient(int patientId);
+
+    // Remove a specific patient from the queue
+    boolean removePatient(int patientId);
+
+    // Restore queue order after the patient's criticality or arrival time changed
+    void updatePatientPriority(Patient patient);
+
+    // Raise a waiting patient's priority in place; the new key must not be larger than the current one
+    boolean decreaseKey(int patientId, int newCriticality, long newArrivalTime);
+
+    // Remove all patients from the queue
+    void clear();
+
+    // Display the queue level by level
+    void displayLevelByLevel();
+
+    // Get a copy of the queue contents in heap order (for display purposes)
+    List<Patient> getHeapList();
+
+    // Get patient at specific heap index (for visualization)
+    Patient getPatientAt(int index);
+}
@@ -0,0 +1,41 @@
+package controller;
+
+// Available waiting-queue implementations. The default allocator picks one from the
+// "hospital.queue" system property (e.g. -Dhospital.queue=bucket), falling back to PACKED.
+public enum PatientQueueType {
+    BINARY,  // MinHeap: original ArrayList binary heap
+    INDEXED, // IndexedMinHeap: binary heap with patientId -> slot index
+    PACKED,  // PackedMinHeap: struct-of-arrays heap with packed primitive keys
+    BUCKET;  // BucketQueue: one FIFO per criticality level
+
+    public static final String PROPERTY = "hospital.queue";
+
+    // Create a new, empty queue of this type
+    public PatientQueue create() {
+        switch (this) {
+            case BINARY:
+                return new MinHeap();
+            case INDEXED:
+                return new IndexedMinHeap();
+            case BUCKET:
+                return new BucketQueue();
+            case PACKED:
+            default:
+                return new PackedMinHeap();
+        }
+    }
+
+    // Resolve the queue type configured through the system property
+    public static PatientQueueType fromSystemProperty() {
+        String name = System.getProperty(PROPERTY);
+        if (name == null || name.trim().isEmpty()) {
+            return PACKED;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            EventLog.log(LogLevel.WARN, "Unknown queue type '{}', using {}", name, PACKED);
+            return PACKED;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Fixed-layout binary snapshot file, written and read through a memory mapping.
+// Every record has a fixed size, so any field of any record is read straight from the
+// mapped file by offset, without parsing the records before it. Strings (names, bed
+// locations and types) live in a string table at the end of the file and records refer
+// to them by index; a string is only decoded when it is asked for. An open SnapshotFile
+// is meant to be read by one thread at a time.
+//
+// Layout (big-endian):
+//   header   64 bytes: magic, version, section counts, string data length, CRC32 of the body,
+//            generation (0 unless written by DeltaStore)
+//   beds     20 bytes each: bedId, flags, locationRef, typeRef, assignedPatientId
+//   free     4 bytes each: IDs of the free beds in hand-out order
+//   patients 28 bytes each: patientId, nameRef, criticality, arrivalTime, dischargeTime;
+//            the waiting (heap order), assigned and discharged patients, in that order
+//   strings  (stringCount + 1) start offsets into the string data, then the UTF-8 data
+public final class SnapshotFile {
+    public static final int MAGIC = 0x48425331; // "HBS1"
+    public static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int BED_BYTES = 20;
+    private static final int FREE_BED_BYTES = 4;
+    private static final int PATIENT_BYTES = 28;
+    private static final int OCCUPIED = 1; // bed flag
+
+    // Header field offsets
+    private static final int COUNTS = 8; // bed, free bed, waiting, assigned, discharged, string counts
+    private static final int STRING_DATA_LENGTH = 32;
+    private static final int BODY_CRC = 36;
+    private static final int GENERATION = 40;
+
+    private static final PatientLocation[] LOCATIONS = PatientLocation.values();
+
+    private final ByteBuffer buffer;
+    private final int bedCount;
+    private final int freeBedCount;
+    private final int[] patientCounts = new int[LOCATIONS.length];
+    private final int[] patientStarts = new int[LOCATIONS.length]; // index of each section's first patient
+    private final int stringCount;
+    private final int freeBedsOffset;
+    private final int patientsOffset;
+    private final int stringOffsetsOffset;
+    private final int stringDataOffset;
+    private final String[] strings; // decoded strings, filled in on first use
+    private final ByteBuffer stringData; // read cursor for decoding strings
+    private byte[] scratch = new byte[64];
+
+    private SnapshotFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+        }
+        bedCount = count(COUNTS);
+        freeBedCount = count(COUNTS + 4);
+        int patientCount = 0;
+        for (int i = 0; i < LOCATIONS.length; i++) {
+            patientStarts[i] = patientCount;
+            patientCounts[i] = count(COUNTS + 8 + 4 * i);
+            patientCount += patientCounts[i];
+        }
+        stringCount = count(COUNTS + 20);
+        int stringDataLength = count(STRING_DATA_LENGTH);
+
+        long size = layoutSize(bedCount, freeBedCount, patientCount, stringCount, stringDataLength);
+        if (size != buffer.capacity()) {
+            throw new IOException("Snapshot is truncated");
+        }
+        freeBedsOffset = HEADER_BYTES + bedCount * BED_BYTES;
+        patientsOffset = freeBedsOffset + freeBedCount * FREE_BED_BYTES;
+        stringOffsetsOffset = patientsOffset + patientCount * PATIENT_BYTES;
+        stringDataOffset = stringOffsetsOffset + (stringCount + 1) * 4;
+        strings = new String[stringCount];
+        stringData = buffer.duplicate();
+
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_BYTES);
+        crc.update(body);
+        if ((int) crc.getValue() != buffer.getInt(BODY_CRC)) {
+            throw new IOException("Snapshot is corrupt");
+        }
+    }
+
+    // Read a non-negative count from the header
+    private int count(int offset) throws IOException {
+        int value = buffer.getInt(offset);
+        if (value < 0) {
+            throw new IOException("Snapshot header is corrupt");
+        }
+        return value;
+    }
+
+    // Get the file size for a set of section sizes
+    private static long layoutSize(long beds, long freeBeds, long patients, long strings, long stringData) {
+        return HEADER_BYTES + beds * BED_BYTES + freeBeds * FREE_BED_BYTES + patients * PATIENT_BYTES
+                + (strings + 1) * 4 + stringData;
+    }
+
+    // Map a snapshot file and check its header and checksum
+    public static SnapshotFile open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large");
+            }
+            return new SnapshotFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    // Write a snapshot to a file through a memory mapping and force it to disk
+    public static void write(SystemSnapshot snapshot, File file) throws IOException {
+        write(snapshot, file, 0);
+    }
+
+    // Write a snapshot tagged with a generation, which DeltaStore uses to match the base
+    // snapshot with its delta files
+    public static void write(SystemSnapshot snapshot, File file, long generation) throws IOException {
+        List<SystemSnapshot.BedRecord> beds = snapshot.getBeds();
+        int[] freeBedIds = snapshot.getFreeBedIds();
+        List<List<SystemSnapshot.PatientRecord>> sections = new ArrayList<>(LOCATIONS.length);
+        sections.add(snapshot.getWaitingPatients());
+        sections.add(snapshot.getAssignedPatients());
+        sections.add(snapshot.getDischargedPatients());
+
+        // Bed locations and types repeat, so they are stored once each. Patient names are
+        // nearly all distinct, so they follow in patient order without the lookup.
+        Map<String, Integer> bedStringRefs = new HashMap<>();
+        List<String> bedStrings = new ArrayList<>();
+        int[] bedRefs = new int[beds.size() * 2];
+        long stringDataLength = 0;
+        for (int i = 0; i < beds.size(); i++) {
+            SystemSnapshot.BedRecord bed = beds.get(i);
+            for (int field = 0; field < 2; field++) {
+                String value = field == 0 ? bed.getLocation() : bed.getType();
+                Integer ref = bedStringRefs.get(value);
+                if (ref == null) {
+                    ref = bedStrings.size();
+                    bedStringRefs.put(value, ref);
+                    bedStrings.add(value);
+                    stringDataLength += utf8Length(value);
+                }
+                bedRefs[2 * i + field] = ref;
+            }
+        }
+        long patientCount = 0;
+        for (List<SystemSnapshot.PatientRecord> section : sections) {
+            patientCount += section.size();
+            for (SystemSnapshot.PatientRecord patient : section) {
+                stringDataLength += utf8Length(patient.getName());
+            }
+        }
+        long stringCount = bedStrings.size() + patientCount;
+        long size = layoutSize(beds.size(), freeBedIds.length, patientCount, stringCount, stringDataLength);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot is too large");
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(beds.size());
+            out.putInt(freeBedIds.length);
+            for (List<SystemSnapshot.PatientRecord> section : sections) {
+                out.putInt(section.size());
+            }
+            out.putInt((int) stringCount);
+            out.putInt((int) stringDataLength);
+            out.putLong(GENERATION, generation);
+            out.position(HEADER_BYTES);
+
+            for (int i = 0; i < beds.size(); i++) {
+                SystemSnapshot.BedRecord bed = beds.get(i);
+                out.putInt(bed.getBedId());
+                out.putInt(bed.isOccupied() ? OCCUPIED : 0);
+                out.putInt(bedRefs[2 * i]);
+                out.putInt(bedRefs[2 * i + 1]);
+                out.putInt(bed.getAssignedPatientId());
+            }
+            for (int bedId : freeBedIds) {
+                out.putInt(bedId);
+            }
+            int nameRef = bedStrings.size();
+            for (List<SystemSnapshot.PatientRecord> section : sections) {
+                for (SystemSnapshot.PatientRecord patient : section) {
+                    out.putInt(patient.getPatientId());
+                    out.putInt(nameRef++);
+                    out.putInt(patient.getCriticality());
+                    out.putLong(patient.getArrivalTime());
+                    out.putLong(patient.getDischargeTime());
+                }
+            }
+
+            // String table: start offsets, then the bytes
+            int stringOffsets = out.position();
+            int dataStart = stringOffsets + (int) (stringCount + 1) * 4;
+            out.position(dataStart);
+            int index = 0;
+            for (String value : bedStrings) {
+                putString(out, stringOffsets, index++, dataStart, value);
+            }
+            for (List<SystemSnapshot.PatientRecord> section : sections) {
+                for (SystemSnapshot.PatientRecord patient : section) {
+                    putString(out, stringOffsets, index++, dataStart, patient.getName());
+                }
+            }
+            out.putInt(stringOffsets + index * 4, out.position() - dataStart);
+
+            CRC32 crc = new CRC32();
+            ByteBuffer body = out.duplicate();
+            body.position(HEADER_BYTES);
+            crc.update(body);
+            out.putInt(BODY_CRC, (int) crc.getValue());
+            out.force();
+        }
+    }
+
+    // Append a string's bytes and record where they start
+    private static void putString(ByteBuffer out, int stringOffsets, int index, int dataStart, String value) {
+        out.putInt(stringOffsets + index * 4, out.position() - dataStart);
+        out.put(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Get the number of bytes getBytes(UTF_8) produces for a string
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1; // Unpaired surrogates are encoded as '?'
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    // Get a string from the string table, decoding it on first use
+    private String string(int ref) {
+        String value = strings[ref];
+        if (value == null) {
+            int start = buffer.getInt(stringOffsetsOffset + ref * 4);
+            int end = buffer.getInt(stringOffsetsOffset + ref * 4 + 4);
+            int length = end - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            stringData.position(stringDataOffset + start);
+            stringData.get(scratch, 0, length);
+            value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            strings[ref] = value;
+        }
+        return value;
+    }
+
+    // Get the generation the snapshot was written with (0 if none)
+    public long getGeneration() {
+        return buffer.getLong(GENERATION);
+    }
+
+    public int getBedCount() {
+        return bedCount;
+    }
+
+    public int getBedId(int index) {
+        return buffer.getInt(bedOffset(index));
+    }
+
+    public boolean isBedOccupied(int index) {
+        return (buffer.getInt(bedOffset(index) + 4) & OCCUPIED) != 0;
+    }
+
+    public String getBedLocation(int index) {
+        return string(buffer.getInt(bedOffset(index) + 8));
+    }
+
+    public String getBedType(int index) {
+        return string(buffer.getInt(bedOffset(index) + 12));
+    }
+
+    // Get the ID of the patient in a bed, or -1 if none is recorded
+    public int getBedPatientId(int index) {
+        return buffer.getInt(bedOffset(index) + 16);
+    }
+
+    public int getFreeBedCount() {
+        return freeBedCount;
+    }
+
+    // Get the ID of the free bed at a position in hand-out order
+    public int getFreeBedId(int index) {
+        if (index < 0 || index >= freeBedCount) {
+            throw new IndexOutOfBoundsException("Free bed " + index);
+        }
+        return buffer.getInt(freeBedsOffset + index * FREE_BED_BYTES);
+    }
+
+    // Get the number of patients stored for a location
+    public int getPatientCount(PatientLocation location) {
+        return patientCounts[location.ordinal()];
+    }
+
+    public int getPatientId(PatientLocation location, int index) {
+        return buffer.getInt(patientOffset(location, index));
+    }
+
+    public String getPatientName(PatientLocation location, int index) {
+        return string(buffer.getInt(patientOffset(location, index) + 4));
+    }
+
+    public int getCriticality(PatientLocation location, int index) {
+        return buffer.getInt(patientOffset(location, index) + 8);
+    }
+
+    public long getArrivalTime(PatientLocation location, int index) {
+        return buffer.getLong(patientOffset(location, index) + 12);
+    }
+
+    public long getDischargeTime(PatientLocation location, int index) {
+        return buffer.getLong(patientOffset(location, index) + 20);
+    }
+
+    private int bedOffset(int index) {
+        if (index < 0 || index >= bedCount) {
+            throw new IndexOutOfBoundsException("Bed " + index);
+        }
+        return HEADER_BYTES + index * BED_BYTES;
+    }
+
+    private int patientOffset(PatientLocation location, int index) {
+        int section = location.ordinal();
+        if (index < 0 || index >= patientCounts[section]) {
+            throw new IndexOutOfBoundsException(location.getLabel() + " patient " + index);
+        }
+        return patientsOffset + (patientStarts[section] + index) * PATIENT_BYTES;
+    }
+
+    // Copy the whole file into a SystemSnapshot
+    public SystemSnapshot toSnapshot() {
+        List<SystemSnapshot.BedRecord> beds = new ArrayList<>(bedCount);
+        for (int i = 0; i < bedCount; i++) {
+            beds.add(new SystemSnapshot.BedRecord(getBedId(i), getBedLocation(i), getBedType(i),
+                                                  isBedOccupied(i), getBedPatientId(i)));
+        }
+        int[] freeBedIds = new int[freeBedCount];
+        for (int i = 0; i < freeBedCount; i++) {
+            freeBedIds[i] = getFreeBedId(i);
+        }
+        return new SystemSnapshot(beds, freeBedIds, patientRecords(PatientLocation.WAITING),
+                                  patientRecords(PatientLocation.ASSIGNED), patientRecords(PatientLocation.DISCHARGED));
+    }
+
+    private List<SystemSnapshot.PatientRecord> patientRecords(PatientLocation location) {
+        int count = getPatientCount(location);
+        List<SystemSnapshot.PatientRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new SystemSnapshot.PatientRecord(getPatientId(location, i), getPatientName(location, i),
+                    getCriticality(location, i), getArrivalTime(location, i), getDischargeTime(location, i)));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,155 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import model.Bed;
+import model.Patient;
+
+// Immutable copy of the complete allocator state, taken with HospitalBedAllocator.captureSnapshot.
+// Besides the beds and patients it records the order the allocator depends on: waiting
+// patients in heap order, free beds in hand-out order and discharges in discharge order,
+// so restoreSnapshot rebuilds exactly the same state without re-running any allocation.
+public final class SystemSnapshot {
+    // Immutable copy of a patient
+    public static final class PatientRecord {
+        private final int patientId;
+        private final String name;
+        private final int criticality;
+        private final long arrivalTime;
+        private final long dischargeTime; // -1 unless discharged
+
+        public PatientRecord(int patientId, String name, int criticality, long arrivalTime, long dischargeTime) {
+            this.patientId = patientId;
+            this.name = name;
+            this.criticality = criticality;
+            this.arrivalTime = arrivalTime;
+            this.dischargeTime = dischargeTime;
+        }
+
+        static PatientRecord of(Patient patient) {
+            return new PatientRecord(patient.getPatientId(), patient.getName(), patient.getCriticality(),
+                                     patient.getArrivalTime(), patient.getDischargeTime());
+        }
+
+        public int getPatientId() {
+            return patientId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCriticality() {
+            return criticality;
+        }
+
+        public long getArrivalTime() {
+            return arrivalTime;
+        }
+
+        public long getDischargeTime() {
+            return dischargeTime;
+        }
+
+        // Create a new, unlinked Patient with this record's values
+        Patient toPatient() {
+            Patient patient = new Patient(patientId, name, criticality);
+            patient.setArrivalTime(arrivalTime);
+            if (dischargeTime > 0) {
+                patient.setDischargeTime(dischargeTime);
+            }
+            return patient;
+        }
+    }
+
+    // Immutable copy of a bed and the ID of the patient in it
+    public static final class BedRecord {
+        private final int bedId;
+        private final String location;
+        private final String type;
+        private final boolean occupied;
+        private final int assignedPatientId; // -1 if no patient is recorded
+
+        public BedRecord(int bedId, String location, String type, boolean occupied, int assignedPatientId) {
+            this.bedId = bedId;
+            this.location = location;
+            this.type = type;
+            this.occupied = occupied;
+            this.assignedPatientId = assignedPatientId;
+        }
+
+        static BedRecord of(Bed bed) {
+            Patient patient = bed.getAssignedPatient();
+            return new BedRecord(bed.getBedId(), bed.getLocation(), bed.getType(), bed.isOccupied(),
+                                 patient == null ? -1 : patient.getPatientId());
+        }
+
+        public int getBedId() {
+            return bedId;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public boolean isOccupied() {
+            return occupied;
+        }
+
+        public int getAssignedPatientId() {
+            return assignedPatientId;
+        }
+    }
+
+    private final List<BedRecord> beds;
+    private final int[] freeBedIds;
+    private final List<PatientRecord> waitingPatients;
+    private final List<PatientRecord> assignedPatients;
+    private final List<PatientRecord> dischargedPatients;
+
+    public SystemSnapshot(List<BedRecord> beds, int[] freeBedIds, List<PatientRecord> waitingPatients,
+                          List<PatientRecord> assignedPatients, List<PatientRecord> dischargedPatients) {
+        this.beds = Collections.unmodifiableList(new ArrayList<>(beds));
+        this.freeBedIds = freeBedIds.clone();
+        this.waitingPatients = Collections.unmodifiableList(new ArrayList<>(waitingPatients));
+        this.assignedPatients = Collections.unmodifiableList(new ArrayList<>(assignedPatients));
+        this.dischargedPatients = Collections.unmodifiableList(new ArrayList<>(dischargedPatients));
+    }
+
+    // Get an empty snapshot (no beds, no patients)
+    public static SystemSnapshot empty() {
+        List<BedRecord> noBeds = Collections.emptyList();
+        List<PatientRecord> noPatients = Collections.emptyList();
+        return new SystemSnapshot(noBeds, new int[0], noPatients, noPatients, noPatients);
+    }
+
+    // Get all beds in registration order
+    public List<BedRecord> getBeds() {
+        return beds;
+    }
+
+    // Get the IDs of the free beds in the order they will be handed out
+    public int[] getFreeBedIds() {
+        return freeBedIds.clone();
+    }
+
+    // Get the waiting patients in heap order
+    public List<PatientRecord> getWaitingPatients() {
+        return waitingPatients;
+    }
+
+    // Get the patients currently in a bed, in bed registration order
+    public List<PatientRecord> getAssignedPatients() {
+        return assignedPatients;
+    }
+
+    // Get the discharged patients in discharge order
+    public List<PatientRecord> getDischargedPatients() {
+        return dischargedPatients;
+    }
+}
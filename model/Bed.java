@@ -3,9 +3,10 @@ package model;
 public class Bed {
     private int bedId;
     private String location; // e.g., "ICU-101", "Ward-A-001"
-    private String type; // e.g., "ICU", "Regular", "Semi-private"
+    private BedType type; // e.g., "ICU", "Regular", "Semi-private"
     private boolean occupied;
     private Patient assignedPatient;
+    private boolean dirty; // Changed since the last incremental save
 
     public Bed(int bedId, String location) {
         this.bedId = bedId;
@@ -16,6 +17,10 @@ public class Bed {
     }
 
     public Bed(int bedId, String location, String type) {
+        this(bedId, location, BedType.of(type));
+    }
+
+    public Bed(int bedId, String location, BedType type) {
         this.bedId = bedId;
         this.location = location;
         this.type = type;
@@ -24,15 +29,16 @@ public class Bed {
     }
 
     // Helper method to determine bed type from location
-    private String determineTypeFromLocation(String location) {
-        if (location.toUpperCase().contains("ICU")) {
-            return "ICU";
-        } else if (location.toUpperCase().contains("WARD")) {
-            return "Regular Ward";
-        } else if (location.toUpperCase().contains("PRIVATE")) {
-            return "Private Room";
+    private BedType determineTypeFromLocation(String location) {
+        String upperLocation = location.toUpperCase();
+        if (upperLocation.contains("ICU")) {
+            return BedType.ICU;
+        } else if (upperLocation.contains("WARD")) {
+            return BedType.REGULAR_WARD;
+        } else if (upperLocation.contains("PRIVATE")) {
+            return BedType.PRIVATE_ROOM;
         } else {
-            return "General";
+            return BedType.GENERAL;
         }
     }
 
@@ -46,6 +52,10 @@ public class Bed {
     }
 
     public String getType() {
+        return type.getName();
+    }
+
+    public BedType getBedType() {
         return type;
     }
 
@@ -100,4 +110,22 @@ public class Bed {
             this.assignedPatient = null; // Clear assigned patient if bed is no longer occupied
         }
     }
+
+    // Dirty tracking for incremental saves: mark the bed as changed since the last save;
+    // returns false if it was already marked
+    public boolean markDirty() {
+        if (dirty) {
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void clearDirty() {
+        dirty = false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Interned bed type. Each distinct type name maps to exactly one BedType with a small
+// dense ID, so beds can be grouped by type in arrays and compared by reference.
+public final class BedType {
+    private static final Map<String, BedType> TYPES_BY_NAME = new ConcurrentHashMap<>();
+    private static final List<BedType> TYPES_BY_ID = new CopyOnWriteArrayList<>();
+
+    public static final BedType ICU = of("ICU");
+    public static final BedType REGULAR_WARD = of("Regular Ward");
+    public static final BedType PRIVATE_ROOM = of("Private Room");
+    public static final BedType GENERAL = of("General");
+
+    private final int id;
+    private final String name;
+    private final String lowerCaseName; // Cached for case-insensitive type queries
+
+    private BedType(int id, String name) {
+        this.id = id;
+        this.name = name;
+        this.lowerCaseName = name.toLowerCase();
+    }
+
+    // Get the interned type for a name, registering it on first use
+    public static BedType of(String name) {
+        BedType type = TYPES_BY_NAME.get(name);
+        if (type != null) {
+            return type;
+        }
+        synchronized (TYPES_BY_ID) {
+            type = TYPES_BY_NAME.get(name);
+            if (type == null) {
+                type = new BedType(TYPES_BY_ID.size(), name);
+                TYPES_BY_ID.add(type);
+                TYPES_BY_NAME.put(name, type);
+            }
+            return type;
+        }
+    }
+
+    // Get the interned type for a name without registering it, or null if unknown
+    public static BedType find(String name) {
+        return TYPES_BY_NAME.get(name);
+    }
+
+    // Get a type by its ID
+    public static BedType byId(int id) {
+        return TYPES_BY_ID.get(id);
+    }
+
+    // Get the number of registered types
+    public static int count() {
+        return TYPES_BY_ID.size();
+    }
+
+    // Get all registered types in ID order
+    public static List<BedType> values() {
+        return TYPES_BY_ID;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Check if the type name contains an already lower-cased query
+    public boolean matches(String lowerCaseQuery) {
+        return lowerCaseName.contains(lowerCaseQuery);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -9,6 +9,7 @@ public class Patient implements Comparable<Patient> {
     private Bed assignedBed; // Reference to the assigned bed
     private long dischargeTime; // Timestamp when patient was discharged
     private boolean discharged; // Whether the patient has been discharged
+    private boolean dirty; // Changed since the last incremental save
 
     public Patient(int patientId, String name, int criticality) {
         this.patientId = patientId;
@@ -85,6 +86,24 @@ public class Patient implements Comparable<Patient> {
         }
     }
 
+    // Dirty tracking for incremental saves: mark the patient as changed since the last save;
+    // returns false if it was already marked
+    public boolean markDirty() {
+        if (dirty) {
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void clearDirty() {
+        dirty = false;
+    }
+
     // Implementation of compareTo for Min-Heap priority
     // Priority is determined first by criticality, then by arrival time
     @Override
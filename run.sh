@@ -20,7 +20,7 @@ fi
 
 echo "Compiling the GUI Hospital Management System..."
 # Compile all Java files recursively with proper package structure
-find . -name "*.java" -exec javac {} \;
+find . -name "*.java" -not -path "./benchmarks/*" -not -path "./target/*" -exec javac {} \;
 
 if [ $? -ne 0 ]; then
     echo "Compilation failed!"
@@ -0,0 +1,43 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import controller.SystemSnapshot.BedRecord;
+import controller.SystemSnapshot.PatientRecord;
+
+// Test helper: a readable description of an allocator's state, for comparing two allocators.
+// Waiting patients are listed by ID, since equal states may keep them in a different heap order.
+final class AllocatorState {
+    private AllocatorState() {
+    }
+
+    static String describe(HospitalBedAllocator allocator) {
+        return describe(allocator.captureSnapshot());
+    }
+
+    static String describe(SystemSnapshot snapshot) {
+        StringBuilder text = new StringBuilder();
+        for (BedRecord bed : snapshot.getBeds()) {
+            text.append("bed ").append(bed.getBedId()).append(' ').append(bed.getLocation()).append(' ')
+                .append(bed.getType()).append(' ').append(bed.isOccupied()).append(' ')
+                .append(bed.getAssignedPatientId()).append('\n');
+        }
+        text.append("free ").append(Arrays.toString(snapshot.getFreeBedIds())).append('\n');
+        List<PatientRecord> waiting = new ArrayList<>(snapshot.getWaitingPatients());
+        waiting.sort(Comparator.comparingInt(PatientRecord::getPatientId));
+        append(text, "waiting", waiting);
+        append(text, "assigned", snapshot.getAssignedPatients());
+        append(text, "discharged", snapshot.getDischargedPatients());
+        return text.toString();
+    }
+
+    private static void append(StringBuilder text, String label, List<PatientRecord> patients) {
+        for (PatientRecord patient : patients) {
+            text.append(label).append(' ').append(patient.getPatientId()).append(' ').append(patient.getName())
+                .append(' ').append(patient.getCriticality()).append(' ').append(patient.getArrivalTime())
+                .append(' ').append(patient.getDischargeTime()).append('\n');
+        }
+    }
+}
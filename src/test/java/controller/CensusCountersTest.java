@@ -0,0 +1,29 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class CensusCountersTest {
+    @Test
+    void levelsOutsideOneToThreeShareTheOtherRow() {
+        CensusCounters census = new CensusCounters();
+        census.add(-5, PatientLocation.WAITING);
+        census.add(Integer.MAX_VALUE, PatientLocation.WAITING);
+        census.add(2, PatientLocation.WAITING);
+        census.move(Integer.MAX_VALUE, PatientLocation.WAITING, PatientLocation.ASSIGNED);
+        census.changeCriticality(-5, 1, PatientLocation.WAITING);
+
+        assertEquals(1, census.get(1, PatientLocation.WAITING));
+        assertEquals(1, census.get(2, PatientLocation.WAITING));
+        assertEquals(0, census.get(0, PatientLocation.WAITING));
+        assertEquals(1, census.get(7, PatientLocation.ASSIGNED));
+        assertEquals(1, census.getByCriticality(-1));
+        assertEquals(2, census.getByLocation(PatientLocation.WAITING));
+        assertEquals(1, census.getByLocation(PatientLocation.ASSIGNED));
+
+        census.clear();
+        assertEquals(0, census.getByCriticality(Integer.MIN_VALUE));
+        assertEquals(0, census.getByLocation(PatientLocation.WAITING));
+    }
+}
@@ -0,0 +1,226 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import model.Bed;
+import model.Patient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DeltaStoreTest {
+    @TempDir
+    Path directory;
+
+    private File file;
+    private HospitalBedAllocator allocator;
+    private DeltaStore store;
+
+    @BeforeAll
+    static void quiet() {
+        EventLog.setLevel(LogLevel.ERROR);
+    }
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("hospital.snap").toFile();
+        allocator = SnapshotFileTest.sampleAllocator();
+        store = new DeltaStore(allocator, file);
+        allocator.addListener(store);
+    }
+
+    @Test
+    void baseAndDeltasRestoreTheSameState() {
+        assertTrue(save(true));
+        String[] states = new String[3];
+        for (int round = 0; round < 3; round++) {
+            change(round);
+            assertTrue(save(false));
+            states[round] = AllocatorState.describe(allocator);
+        }
+        assertEquals(3, deltaFiles().size());
+
+        HospitalBedAllocator loaded = load(new DeltaStore(new HospitalBedAllocator(), file));
+        assertEquals(states[2], AllocatorState.describe(loaded));
+    }
+
+    @Test
+    void savesContinueTheLoadedDeltas() {
+        assertTrue(save(true));
+        change(0);
+        assertTrue(save(false));
+
+        HospitalBedAllocator loaded = new HospitalBedAllocator();
+        DeltaStore loadedStore = new DeltaStore(loaded, file);
+        loaded.restoreSnapshot(loadedStore.load());
+        loadedStore.adoptLoaded();
+        loaded.addListener(loadedStore);
+        loaded.insertPatient(new Patient(500, "After Reload", 2));
+        DeltaStore.Save save = loadedStore.prepareSave(false);
+        assertFalse(save.isFull());
+        assertTrue(save.write());
+
+        HospitalBedAllocator reloaded = load(new DeltaStore(new HospitalBedAllocator(), file));
+        assertEquals(AllocatorState.describe(loaded), AllocatorState.describe(reloaded));
+    }
+
+    @Test
+    void compactionDeletesOnlyDeltasOfOlderGenerations() throws IOException {
+        assertTrue(save(true));
+        change(0);
+        assertTrue(save(false));
+        change(1);
+        assertTrue(save(false));
+        List<File> oldDeltas = deltaFiles();
+        assertEquals(2, oldDeltas.size());
+        File unrelated = directory.resolve("other.snap.1.0.delta").toFile();
+        assertTrue(unrelated.createNewFile());
+
+        // Enough changes to pass the delta limit make the next save a full one
+        List<Patient> batch = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            batch.add(new Patient(1000 + i, "Batch " + i, 3));
+        }
+        allocator.insertPatients(batch);
+        DeltaStore.Save compacting = store.prepareSave(false);
+        assertTrue(compacting.isFull());
+        assertTrue(compacting.write());
+        for (File delta : oldDeltas) {
+            assertFalse(delta.exists(), delta.getName());
+        }
+        assertTrue(unrelated.exists());
+
+        // The new generation's deltas survive the next delta save
+        change(2);
+        assertTrue(save(false));
+        List<File> newDeltas = deltaFiles();
+        assertEquals(1, newDeltas.size());
+        assertNotEquals(generationOf(oldDeltas.get(0)), generationOf(newDeltas.get(0)));
+
+        HospitalBedAllocator loaded = load(new DeltaStore(new HospitalBedAllocator(), file));
+        assertEquals(AllocatorState.describe(allocator), AllocatorState.describe(loaded));
+    }
+
+    @Test
+    void missingDeltaStopsTheLoadAndForcesAFullSave() {
+        assertTrue(save(true));
+        change(0);
+        assertTrue(save(false));
+        String afterFirst = AllocatorState.describe(allocator);
+        change(1);
+        assertTrue(save(false));
+        change(2);
+        assertTrue(save(false));
+
+        assertTrue(deltaFile(1).delete());
+        DeltaStore loadedStore = new DeltaStore(new HospitalBedAllocator(), file);
+        HospitalBedAllocator loaded = load(loadedStore);
+        // Delta 2 builds on delta 1, so it is not applied either
+        assertEquals(afterFirst, AllocatorState.describe(loaded));
+        assertTrue(loadedStore.prepareSave(false).isFull());
+    }
+
+    @Test
+    void corruptDeltaStopsTheLoadAndForcesAFullSave() throws IOException {
+        assertTrue(save(true));
+        change(0);
+        assertTrue(save(false));
+        String afterFirst = AllocatorState.describe(allocator);
+        change(1);
+        assertTrue(save(false));
+
+        try (RandomAccessFile out = new RandomAccessFile(deltaFile(1), "rw")) {
+            out.seek(out.length() - 1);
+            int last = out.read();
+            out.seek(out.length() - 1);
+            out.write(last ^ 0xFF);
+        }
+        DeltaStore loadedStore = new DeltaStore(new HospitalBedAllocator(), file);
+        HospitalBedAllocator loaded = load(loadedStore);
+        assertEquals(afterFirst, AllocatorState.describe(loaded));
+        assertTrue(loadedStore.prepareSave(false).isFull());
+    }
+
+    @Test
+    void deltaPreparedBeforeAFailedWriteIsRefused() throws IOException {
+        assertTrue(save(true));
+        change(0);
+        DeltaStore.Save first = store.prepareSave(false);
+        change(1);
+        DeltaStore.Save second = store.prepareSave(false);
+
+        // A directory in the way of the first delta makes its write fail
+        File blocker = new File(file.getPath() + "." + Long.toHexString(generationOfBase()) + ".0.delta.tmp");
+        assertTrue(blocker.mkdir());
+        assertFalse(first.write());
+        assertFalse(second.write());
+        assertTrue(deltaFiles().isEmpty());
+        assertTrue(store.prepareSave(false).isFull());
+    }
+
+    // Changes of three kinds: admissions, discharges with reassignment, and new beds
+    private void change(int round) {
+        allocator.insertPatient(new Patient(100 + round, "Round " + round, 1 + round % 3));
+        allocator.reassignPatient(18 - round, 1);
+        for (Bed bed : allocator.getAllBeds()) {
+            if (bed.isOccupied()) {
+                allocator.releaseBed(bed.getBedId());
+                break;
+            }
+        }
+        allocator.addBed(new Bed(50 + round, "Ward C", "Private Room"));
+    }
+
+    private boolean save(boolean full) {
+        DeltaStore.Save save = store.prepareSave(full);
+        assertEquals(full, save.isFull());
+        return save.write();
+    }
+
+    private static HospitalBedAllocator load(DeltaStore loadedStore) {
+        SystemSnapshot snapshot = loadedStore.load();
+        assertNotNull(snapshot);
+        HospitalBedAllocator loaded = new HospitalBedAllocator();
+        loaded.restoreSnapshot(snapshot);
+        return loaded;
+    }
+
+    private List<File> deltaFiles() {
+        List<File> deltas = new ArrayList<>();
+        File[] files = directory.toFile().listFiles();
+        for (File candidate : files) {
+            if (candidate.getName().startsWith(file.getName() + ".") && candidate.getName().endsWith(".delta")) {
+                deltas.add(candidate);
+            }
+        }
+        return deltas;
+    }
+
+    private File deltaFile(int sequence) {
+        for (File delta : deltaFiles()) {
+            if (delta.getName().endsWith("." + sequence + ".delta")) {
+                return delta;
+            }
+        }
+        throw new AssertionError("No delta " + sequence);
+    }
+
+    private static String generationOf(File delta) {
+        return delta.getName().split("\\.")[2];
+    }
+
+    private long generationOfBase() throws IOException {
+        return SnapshotFile.open(file).getGeneration();
+    }
+}
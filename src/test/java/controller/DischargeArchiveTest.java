@@ -0,0 +1,94 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import model.Patient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DischargeArchiveTest {
+    private static final long DISCHARGE_TIME = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void quiet() {
+        EventLog.setLevel(LogLevel.ERROR);
+    }
+
+    // A block of discharged patients with consecutive IDs
+    private static List<Patient> block(int firstId, int count) {
+        List<Patient> patients = new ArrayList<>(count);
+        for (int id = firstId; id < firstId + count; id++) {
+            Patient patient = new Patient(id, (id % 2 == 0 ? "Even " : "Odd ") + id, 1 + id % 3);
+            patient.setArrivalTime(DISCHARGE_TIME - 1000);
+            patient.setDischargeTime(DISCHARGE_TIME + id);
+            patient.setDischarged(true);
+            patients.add(patient);
+        }
+        return patients;
+    }
+
+    @Test
+    void reopenedArchiveFindsPatientsByIdAndName() throws IOException {
+        try (DischargeArchive archive = DischargeArchive.open(directory.toFile())) {
+            assertTrue(archive.append(block(1, 100)));
+            assertTrue(archive.append(block(101, 100)));
+        }
+        try (DischargeArchive archive = DischargeArchive.open(directory.toFile())) {
+            assertEquals(200, archive.size());
+            assertTrue(archive.contains(150));
+            assertFalse(archive.contains(201));
+            assertEquals("Odd 7", archive.find(7).getName());
+            assertNull(archive.find(0));
+
+            List<Patient> matches = archive.findByName("ODD 1");
+            List<Integer> ids = new ArrayList<>();
+            for (Patient patient : matches) {
+                ids.add(patient.getPatientId());
+            }
+            List<Integer> expected = new ArrayList<>();
+            for (int id = 1; id <= 200; id++) {
+                if (id % 2 == 1 && ("Odd " + id).startsWith("Odd 1")) {
+                    expected.add(id);
+                }
+            }
+            assertEquals(expected, ids);
+
+            assertTrue(archive.append(block(201, 10)));
+            assertTrue(archive.contains(205));
+            assertEquals(1, archive.findByName("even 210").size());
+        }
+    }
+
+    @Test
+    void idCheckDoesNotReadTheBlocks() throws IOException {
+        try (DischargeArchive archive = DischargeArchive.open(directory.toFile())) {
+            assertTrue(archive.append(block(1, 10)));
+            assertTrue(archive.append(block(11, 10)));
+
+            // Damage the first block's records: lookups that read it now see nothing
+            File segment = directory.toFile().listFiles()[0];
+            try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+                file.seek(100);
+                int b = file.read();
+                file.seek(100);
+                file.write(b ^ 0xFF);
+            }
+            assertTrue(archive.contains(5));
+            assertNull(archive.find(5));
+            assertEquals("Odd 15", archive.find(15).getName());
+        }
+    }
+}
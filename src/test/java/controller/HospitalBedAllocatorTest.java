@@ -0,0 +1,108 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.Bed;
+import model.Patient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HospitalBedAllocatorTest {
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void quiet() {
+        EventLog.setLevel(LogLevel.ERROR);
+    }
+
+    @Test
+    void importSkipsPatientsOutsideTheQueueRange() throws IOException {
+        Files.write(directory.resolve(DataPersistence.PATIENTS_FILE),
+                    Arrays.asList("1,Alice,1,100,false,false",
+                                  "2,Bob,2,-5,false,false",
+                                  "3,Carol,40000,100,false,false",
+                                  "4,Dan,3,200,false,false"),
+                    Charset.defaultCharset());
+        for (PatientQueueType type : PatientQueueType.values()) {
+            HospitalBedAllocator allocator = new HospitalBedAllocator(type.create());
+            allocator.importCsv(directory.toFile());
+
+            assertEquals(2, allocator.getWaitingPatientCount(), type.name());
+            assertNotNull(allocator.findPatientById(1), type.name());
+            assertNull(allocator.findPatientById(2), type.name());
+            assertNull(allocator.findPatientById(3), type.name());
+            assertEquals(1, allocator.getPatientHeap().peek().getPatientId(), type.name());
+        }
+    }
+
+    @Test
+    void batchWithAnOutOfRangePatientChangesNothing() {
+        for (PatientQueueType type : PatientQueueType.values()) {
+            HospitalBedAllocator allocator = new HospitalBedAllocator(type.create());
+            Patient late = new Patient(2, "Bob", 2);
+            late.setArrivalTime(-5);
+
+            assertThrows(IllegalArgumentException.class,
+                         () -> allocator.insertPatients(Arrays.asList(new Patient(1, "Alice", 1), late)),
+                         type.name());
+            assertNull(allocator.findPatientById(1), type.name());
+            assertEquals(0, allocator.getPatientCount(1, PatientLocation.WAITING), type.name());
+            assertEquals(0, allocator.findPatientsByName("Alice").size(), type.name());
+            assertEquals(1, allocator.insertPatients(Arrays.asList(new Patient(1, "Alice", 1))), type.name());
+        }
+    }
+
+    @Test
+    void multiTypeBedSearchListsBedsInRegistrationOrder() {
+        HospitalBedAllocator allocator = new HospitalBedAllocator();
+        String[] types = {"General", "ICU", "Regular Ward", "Private Room"};
+        int[] bedIds = {50, 3, 20, 7, 41, 1, 33, 12, 9, 28};
+        for (int i = 0; i < bedIds.length; i++) {
+            allocator.addBed(new Bed(bedIds[i], "Ward " + i, types[i * 7 % types.length]));
+        }
+        // Occupy some beds, then free them out of registration order
+        for (int id = 1; id <= 6; id++) {
+            allocator.insertPatient(new Patient(id, "Patient " + id, 1 + id % 3));
+        }
+        allocator.releaseBed(9);
+        allocator.releaseBed(50);
+        allocator.releaseBed(20);
+
+        assertEquals(Arrays.asList(50, 3, 20, 7, 41, 1, 33, 12, 9, 28), ids(allocator.findBedsByType("")));
+        List<Integer> registeredR = new ArrayList<>();
+        for (int i = 0; i < bedIds.length; i++) {
+            if (types[i * 7 % types.length].toLowerCase().contains("r")) {
+                registeredR.add(bedIds[i]);
+            }
+        }
+        assertEquals(registeredR, ids(allocator.findBedsByType("R")));
+
+        List<Integer> free = new ArrayList<>();
+        for (int id : bedIds) {
+            if (!allocator.findBedById(id).isOccupied()) {
+                free.add(id);
+            }
+        }
+        assertEquals(free, ids(allocator.findAvailableBedsByType("")));
+    }
+
+    private static List<Integer> ids(List<Bed> beds) {
+        List<Integer> ids = new ArrayList<>(beds.size());
+        for (Bed bed : beds) {
+            ids.add(bed.getBedId());
+        }
+        return ids;
+    }
+}
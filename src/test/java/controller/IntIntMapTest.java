@@ -0,0 +1,85 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IntIntMapTest {
+    private static final int TABLE_SIZE = 16; // a new map's capacity
+
+    // Home slot of a key in a table of TABLE_SIZE slots (mirrors IntIntMap.hash)
+    static int home(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+    }
+
+    // The first keys from 0 up whose home slot is the given one
+    static int[] keysWithHome(int slot, int count) {
+        int[] keys = new int[count];
+        int found = 0;
+        for (int key = 0; found < count; key++) {
+            if (home(key) == slot) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    void removingFromAChainThatWrapsKeepsEveryKeyReachable() {
+        // Two keys at home 14, two at home 15 and one at home 0 fill slots 14, 15, 0, 1, 2
+        int[] at14 = keysWithHome(14, 2);
+        int[] at15 = keysWithHome(15, 2);
+        int[] at0 = keysWithHome(0, 1);
+        int[] keys = {at14[0], at14[1], at15[0], at15[1], at0[0]};
+        for (int removed : keys) {
+            IntIntMap map = new IntIntMap(-1);
+            for (int key : keys) {
+                map.put(key, key * 10);
+            }
+            assertEquals(removed * 10, map.remove(removed));
+            assertFalse(map.containsKey(removed));
+            assertEquals(-1, map.get(removed));
+            for (int key : keys) {
+                if (key != removed) {
+                    assertEquals(key * 10, map.get(key), "key " + key + " after removing " + removed);
+                }
+            }
+            assertEquals(keys.length - 1, map.size());
+        }
+    }
+
+    @Test
+    void randomOperationsMatchHashMap() {
+        Random random = new Random(7);
+        IntIntMap map = new IntIntMap(-1);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // A small key range keeps the table small and its probe chains crowded
+            int key = random.nextInt(step < 100_000 ? 12 : 200);
+            if (random.nextInt(3) == 0) {
+                Integer previous = expected.remove(key);
+                assertEquals(previous == null ? -1 : previous, map.remove(key));
+            } else {
+                int value = random.nextInt(1000);
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? -1 : previous, map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+            if (step % 97 == 0) {
+                for (int probe = 0; probe < 200; probe++) {
+                    assertEquals(expected.containsKey(probe), map.containsKey(probe));
+                    assertEquals(expected.getOrDefault(probe, -1).intValue(), map.get(probe));
+                }
+            }
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(3));
+    }
+}
@@ -0,0 +1,63 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IntObjectMapTest {
+    @Test
+    void removingFromAChainThatWrapsKeepsEveryKeyReachable() {
+        // Same hash and initial capacity as IntIntMap: the chain fills slots 14, 15, 0, 1, 2
+        int[] at14 = IntIntMapTest.keysWithHome(14, 2);
+        int[] at15 = IntIntMapTest.keysWithHome(15, 2);
+        int[] at0 = IntIntMapTest.keysWithHome(0, 1);
+        int[] keys = {at14[0], at14[1], at15[0], at15[1], at0[0]};
+        for (int removed : keys) {
+            IntObjectMap<String> map = new IntObjectMap<>();
+            for (int key : keys) {
+                map.put(key, "v" + key);
+            }
+            assertEquals("v" + removed, map.remove(removed));
+            assertFalse(map.containsKey(removed));
+            assertNull(map.get(removed));
+            for (int key : keys) {
+                if (key != removed) {
+                    assertEquals("v" + key, map.get(key), "key " + key + " after removing " + removed);
+                }
+            }
+            List<String> values = new ArrayList<>();
+            map.forEachValue(values::add);
+            assertEquals(keys.length - 1, values.size());
+        }
+    }
+
+    @Test
+    void randomOperationsMatchHashMap() {
+        Random random = new Random(11);
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // A small key range keeps the table small and its probe chains crowded
+            int key = random.nextInt(step < 100_000 ? 12 : 200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Integer value = random.nextInt(1000);
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+            if (step % 97 == 0) {
+                for (int probe = 0; probe < 200; probe++) {
+                    assertEquals(expected.get(probe), map.get(probe));
+                }
+            }
+        }
+    }
+}
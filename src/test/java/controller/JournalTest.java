@@ -0,0 +1,96 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import model.Bed;
+import model.Patient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTest {
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void quiet() {
+        EventLog.setLevel(LogLevel.ERROR);
+    }
+
+    @Test
+    void reopenRecoversEveryRecord() {
+        HospitalBedAllocator allocator = new HospitalBedAllocator();
+        assertTrue(allocator.openJournal(directory.toFile(), 4));
+        for (int i = 1; i <= 10; i++) {
+            allocator.insertPatient(new Patient(i, "Patient " + i, 1 + i % 3));
+        }
+        allocator.addBed(new Bed(1, "Ward A", "ICU"));
+        allocator.addBed(new Bed(2, "Ward A", "General"));
+        allocator.releaseBed(1);
+        allocator.reassignPatient(7, 1);
+        allocator.closeJournal();
+
+        HospitalBedAllocator recovered = new HospitalBedAllocator();
+        assertTrue(recovered.openJournal(directory.toFile(), 4));
+        recovered.closeJournal();
+        assertEquals(AllocatorState.describe(allocator), AllocatorState.describe(recovered));
+    }
+
+    @Test
+    void recordsAfterAnUnreplayableRecordSurviveTheNextRestart() throws IOException {
+        HospitalBedAllocator allocator = new HospitalBedAllocator();
+        assertTrue(allocator.openJournal(directory.toFile()));
+        allocator.addBed(new Bed(1, "Ward A", "ICU"));
+        allocator.addBed(new Bed(2, "Ward A", "ICU"));
+        allocator.addBed(new Bed(3, "Ward A", "ICU"));
+        allocator.closeJournal();
+
+        // Record 1 keeps a valid checksum but can no longer be applied
+        corruptRecordType(new File(directory.toFile(), "journal-0.log"), 1);
+
+        HospitalBedAllocator reopened = new HospitalBedAllocator();
+        assertTrue(reopened.openJournal(directory.toFile()));
+        assertNotNull(reopened.findBedById(1));
+        assertNull(reopened.findBedById(2));
+        reopened.addBed(new Bed(10, "Ward B", "General"));
+        reopened.insertPatient(new Patient(100, "Late Arrival", 2));
+        reopened.closeJournal();
+
+        HospitalBedAllocator restarted = new HospitalBedAllocator();
+        assertTrue(restarted.openJournal(directory.toFile()));
+        restarted.closeJournal();
+        assertNotNull(restarted.findBedById(10));
+        assertNotNull(restarted.findPatientById(100));
+        assertEquals(AllocatorState.describe(reopened), AllocatorState.describe(restarted));
+    }
+
+    // Change the type of one record to an unknown one and fix up its checksum
+    private static void corruptRecordType(File segment, int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            long position = 12; // segment header
+            for (int i = 0; i < index; i++) {
+                file.seek(position);
+                position += 8 + file.readInt();
+            }
+            file.seek(position);
+            int size = file.readInt();
+            byte[] payload = new byte[size];
+            file.seek(position + 8);
+            file.readFully(payload);
+            payload[0] = 99;
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, size);
+            file.seek(position + 4);
+            file.writeInt((int) crc.getValue());
+            file.write(payload);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class PatientNameIndexTest {
+    @Test
+    void reAddedPatientIsListedOnce() {
+        PatientNameIndex index = new PatientNameIndex();
+        index.add(1, "Alice Smith");
+        index.add(2, "Bob Smithers");
+        index.remove(1);
+        index.add(1, "Alice Smith");
+
+        assertArrayEquals(new int[] {2, 1}, index.search("smith").toArray());
+        assertArrayEquals(new int[] {1}, index.search("al").toArray()); // shorter than a trigram
+        assertArrayEquals(new int[] {1}, index.search("ALICE").toArray());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void reAddedPatientIsFoundUnderItsNewName() {
+        PatientNameIndex index = new PatientNameIndex();
+        index.add(1, "Alice Smith");
+        index.remove(1);
+        index.add(1, "Alice Jones");
+
+        assertEquals(0, index.search("smith").size());
+        assertArrayEquals(new int[] {1}, index.search("jones").toArray());
+        assertArrayEquals(new int[] {1}, index.search("alice").toArray());
+    }
+
+    @Test
+    void removedPatientsAreNotFound() {
+        PatientNameIndex index = new PatientNameIndex();
+        for (int id = 0; id < 3000; id++) {
+            index.add(id, "Patient " + id);
+        }
+        // Enough removals to trigger a rebuild along the way
+        for (int id = 0; id < 3000; id += 2) {
+            index.remove(id);
+        }
+        assertEquals(1500, index.size());
+        assertEquals(1500, index.search("patient").size());
+        assertArrayEquals(new int[] {1001}, index.search("patient 1001").toArray());
+        assertEquals(0, index.search("patient 1000").size());
+    }
+}
@@ -0,0 +1,150 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import model.Patient;
+import org.junit.jupiter.api.Test;
+
+class PatientQueueTest {
+    // One queue under test plus its own copies of the patients (queues mutate them)
+    private static final class Run {
+        final PatientQueue queue;
+        final IntObjectMap<Patient> patients = new IntObjectMap<>();
+
+        Run(PatientQueue queue) {
+            this.queue = queue;
+        }
+
+        Patient copy(int id, int criticality, long arrivalTime) {
+            Patient patient = new Patient(id, "Patient " + id, criticality);
+            patient.setArrivalTime(arrivalTime);
+            patients.put(id, patient);
+            return patient;
+        }
+    }
+
+    // Every queue type, after the same random operations, agrees with MinHeap. Arrival
+    // times are unique, so the order of any two patients is fully determined.
+    @Test
+    void everyQueueTypeMatchesMinHeap() {
+        for (long seed = 1; seed <= 10; seed++) {
+            for (PatientQueueType type : PatientQueueType.values()) {
+                runAgainstMinHeap(type, seed);
+            }
+        }
+    }
+
+    private static void runAgainstMinHeap(PatientQueueType type, long seed) {
+        String context = type + " seed " + seed;
+        Random random = new Random(seed);
+        Run reference = new Run(new MinHeap());
+        Run tested = new Run(type.create());
+        List<Run> runs = Arrays.asList(reference, tested);
+        List<Integer> waiting = new ArrayList<>();
+        int nextId = 1;
+        long lateArrival = 1_000_000; // fresh arrivals count up from here
+        long earlyArrival = 999_999;  // arrivals that raise priority at the same level count down
+
+        for (int step = 0; step < 2000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 3 || waiting.isEmpty()) {
+                // Mostly single inserts; some batches are large enough to rebuild the whole queue
+                int batchSize = random.nextInt(10) == 0 ? 1 + random.nextInt(random.nextBoolean() ? 40 : 400) : 1;
+                int[] ids = new int[batchSize];
+                int[] levels = new int[batchSize];
+                long[] arrivals = new long[batchSize];
+                for (int i = 0; i < batchSize; i++) {
+                    ids[i] = nextId++;
+                    levels[i] = 1 + random.nextInt(4);
+                    // Batches may arrive out of order
+                    arrivals[i] = random.nextBoolean() ? lateArrival++ : earlyArrival--;
+                    waiting.add(ids[i]);
+                }
+                for (Run run : runs) {
+                    List<Patient> batch = new ArrayList<>(batchSize);
+                    for (int i = 0; i < batchSize; i++) {
+                        batch.add(run.copy(ids[i], levels[i], arrivals[i]));
+                    }
+                    if (batchSize == 1) {
+                        run.queue.insert(batch.get(0));
+                    } else {
+                        run.queue.insertAll(batch);
+                    }
+                }
+            } else if (operation < 5) {
+                int id = reference.queue.extractMin().getPatientId();
+                assertEquals(id, tested.queue.extractMin().getPatientId(), context);
+                removeId(waiting, id);
+            } else if (operation < 6) {
+                int id = waiting.get(random.nextInt(waiting.size()));
+                for (Run run : runs) {
+                    assertTrue(run.queue.removePatient(id), context);
+                    assertNull(run.queue.findPatient(id), context);
+                }
+                removeId(waiting, id);
+            } else if (operation < 8) {
+                int id = waiting.get(random.nextInt(waiting.size()));
+                int level = reference.patients.get(id).getCriticality();
+                int newLevel = level > 1 && random.nextBoolean() ? level - 1 - random.nextInt(level - 1) : level;
+                long newArrival = earlyArrival--;
+                for (Run run : runs) {
+                    assertTrue(run.queue.decreaseKey(id, newLevel, newArrival), context);
+                }
+            } else {
+                int id = waiting.get(random.nextInt(waiting.size()));
+                int newLevel = 1 + random.nextInt(4);
+                long newArrival = lateArrival++;
+                for (Run run : runs) {
+                    Patient patient = run.patients.get(id);
+                    patient.setCriticality(newLevel);
+                    patient.setArrivalTime(newArrival);
+                    run.queue.updatePatientPriority(patient);
+                }
+            }
+
+            assertEquals(reference.queue.size(), tested.queue.size(), context);
+            if (!reference.queue.isEmpty()) {
+                assertEquals(reference.queue.peek().getPatientId(), tested.queue.peek().getPatientId(), context);
+            }
+        }
+
+        // Draining both queues yields the same order
+        while (!reference.queue.isEmpty()) {
+            assertEquals(reference.queue.extractMin().getPatientId(), tested.queue.extractMin().getPatientId(),
+                         context);
+        }
+        assertTrue(tested.queue.isEmpty(), context);
+    }
+
+    private static void removeId(List<Integer> ids, int id) {
+        int index = ids.indexOf(id);
+        ids.set(index, ids.get(ids.size() - 1));
+        ids.remove(ids.size() - 1);
+    }
+
+    @Test
+    void rejectedBatchLeavesTheQueueUnchanged() {
+        for (PatientQueueType type : PatientQueueType.values()) {
+            if (type == PatientQueueType.BINARY) {
+                continue; // MinHeap does not track IDs
+            }
+            PatientQueue queue = type.create();
+            queue.insert(new Patient(1, "A", 2));
+            queue.insert(new Patient(2, "B", 1));
+            List<Patient> batch = Arrays.asList(new Patient(3, "C", 1), new Patient(4, "D", 3),
+                                                new Patient(1, "A again", 1));
+            assertThrows(IllegalArgumentException.class, () -> queue.insertAll(batch), type.name());
+            assertEquals(2, queue.size(), type.name());
+            assertNull(queue.findPatient(3), type.name());
+            assertEquals(2, queue.extractMin().getPatientId(), type.name());
+            assertEquals(1, queue.extractMin().getPatientId(), type.name());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import model.Bed;
+import model.Patient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotFileTest {
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void quiet() {
+        EventLog.setLevel(LogLevel.ERROR);
+    }
+
+    // Beds of two types, waiting, assigned and discharged patients, and a non-ASCII name
+    static HospitalBedAllocator sampleAllocator() {
+        HospitalBedAllocator allocator = new HospitalBedAllocator();
+        for (int i = 1; i <= 6; i++) {
+            allocator.addBed(new Bed(i, "Ward " + (char) ('A' + i % 2), i % 2 == 0 ? "ICU" : "General"));
+        }
+        for (int i = 1; i <= 20; i++) {
+            allocator.insertPatient(new Patient(i, "Patient " + i, 1 + i % 3));
+        }
+        allocator.insertPatient(new Patient(21, "Zoë Łukasiewicz", 1));
+        allocator.releaseBed(2);
+        allocator.releaseBed(5);
+        allocator.reassignPatient(15, 1);
+        return allocator;
+    }
+
+    @Test
+    void roundTripKeepsTheStateAndGeneration() throws IOException {
+        HospitalBedAllocator allocator = sampleAllocator();
+        SystemSnapshot snapshot = allocator.captureSnapshot();
+        File file = directory.resolve("hospital.snap").toFile();
+        assertTrue(DataPersistence.saveSnapshot(snapshot, file, 42));
+
+        SnapshotFile snapshotFile = SnapshotFile.open(file);
+        assertEquals(42, snapshotFile.getGeneration());
+        SystemSnapshot loaded = snapshotFile.toSnapshot();
+        assertEquals(AllocatorState.describe(snapshot), AllocatorState.describe(loaded));
+        // The waiting queue keeps its exact order
+        assertEquals(snapshot.getWaitingPatients().size(), loaded.getWaitingPatients().size());
+        for (int i = 0; i < snapshot.getWaitingPatients().size(); i++) {
+            assertEquals(snapshot.getWaitingPatients().get(i).getPatientId(),
+                         loaded.getWaitingPatients().get(i).getPatientId());
+        }
+
+        HospitalBedAllocator restored = new HospitalBedAllocator();
+        restored.restoreSnapshot(loaded);
+        assertEquals(AllocatorState.describe(allocator), AllocatorState.describe(restored));
+    }
+
+    @Test
+    void corruptSnapshotIsRejected() throws IOException {
+        File file = directory.resolve("hospital.snap").toFile();
+        assertTrue(DataPersistence.saveSnapshot(sampleAllocator().captureSnapshot(), file));
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.seek(out.length() - 1);
+            int last = out.read();
+            out.seek(out.length() - 1);
+            out.write(last ^ 0xFF);
+        }
+        assertThrows(IOException.class, () -> SnapshotFile.open(file));
+        assertNull(DataPersistence.loadSnapshot(file));
+    }
+}
@@ -1,18 +1,19 @@
 package view;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import model.Bed;
 
 public class BedManagementPanel extends JPanel {
     private controller.HospitalBedAllocator allocator;
     private JTable bedTable;
-    private DefaultTableModel tableModel;
+    private BedTableModel tableModel;
     private JTextField bedIdField, locationField;
     private JComboBox<String> typeCombo;
-    private JButton addButton, releaseButton, searchButton;
+    private JButton addButton, bulkAddButton, releaseButton, searchButton;
     private JTextField searchTypeField;
 
     public BedManagementPanel(controller.HospitalBedAllocator allocator) {
@@ -25,21 +26,19 @@ public class BedManagementPanel extends JPanel {
 
     private void initializeComponents() {
         // Initialize components
-        tableModel = new DefaultTableModel();
+        tableModel = new BedTableModel(allocator);
         bedTable = new JTable(tableModel);
+        bedTable.setDefaultRenderer(Bed.class, new BedTableModel.Renderer());
         bedTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         
         bedIdField = new JTextField(10);
         locationField = new JTextField(20);
         typeCombo = new JComboBox<>(new String[]{"ICU", "Regular Ward", "Private Room", "General"});
         addButton = new JButton("Add Bed");
+        bulkAddButton = new JButton("Add Range...");
         releaseButton = new JButton("Release Bed");
         searchButton = new JButton("Search by Type");
         searchTypeField = new JTextField(15);
-        
-        // Set up table
-        String[] columnNames = {"Bed ID", "Location", "Type", "Status", "Assigned Patient"};
-        tableModel.setColumnIdentifiers(columnNames);
     }
 
     private void layoutComponents() {
@@ -70,6 +69,9 @@ public class BedManagementPanel extends JPanel {
         inputPanel.add(addButton, gbc);
 
         gbc.gridx = 7;
+        inputPanel.add(bulkAddButton, gbc);
+
+        gbc.gridx = 8;
         inputPanel.add(releaseButton, gbc);
 
         // Advanced search panel
@@ -110,6 +112,7 @@ public class BedManagementPanel extends JPanel {
 
     private void setupEventHandlers() {
         addButton.addActionListener(e -> addBed());
+        bulkAddButton.addActionListener(e -> addBedRange());
         releaseButton.addActionListener(e -> releaseBed());
         searchButton.addActionListener(e -> searchBeds());
 
@@ -117,43 +120,23 @@ public class BedManagementPanel extends JPanel {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = bedTable.getSelectedRow();
                 if (selectedRow >= 0) {
-                    String bedIdStr = (String) tableModel.getValueAt(selectedRow, 0);
-                    bedIdField.setText(bedIdStr);
+                    bedIdField.setText(String.valueOf(tableModel.getBedAt(selectedRow).getBedId()));
                 }
             }
         });
     }
 
     private void performAdvancedBedSearch(String typeFilter, String statusFilter) {
-        List<Bed> allBeds = allocator.getAllBeds();
-
-        tableModel.setRowCount(0); // Clear existing data
-
-        for (Bed bed : allBeds) {
-            // Apply type filter
-            boolean typeMatch = typeFilter.isEmpty() ||
-                              bed.getType().toLowerCase().contains(typeFilter.toLowerCase());
-
-            // Apply status filter
-            boolean statusMatch = statusFilter.equals("All") ||
-                                (statusFilter.equals("Available") && !bed.isOccupied()) ||
-                                (statusFilter.equals("Occupied") && bed.isOccupied());
-
-            if (typeMatch && statusMatch) {
-                String patientInfo = bed.getAssignedPatient() != null ?
-                                   "P" + bed.getAssignedPatient().getPatientId() +
-                                   " (" + bed.getAssignedPatient().getName() + ")" : "None";
-
-                Object[] row = {
-                    bed.getBedId(),
-                    bed.getLocation(),
-                    bed.getType(),
-                    bed.isOccupied() ? "Occupied" : "Available",
-                    patientInfo
-                };
-                tableModel.addRow(row);
-            }
+        // The type filter is resolved through the allocator's per-type indexes
+        List<Bed> beds = statusFilter.equals("Available") ?
+                         allocator.findAvailableBedsByType(typeFilter) :
+                         allocator.findBedsByType(typeFilter);
+
+        // Apply status filter
+        if (statusFilter.equals("Occupied")) {
+            beds.removeIf(bed -> !bed.isOccupied());
         }
+        tableModel.showBeds(beds);
     }
 
     private void addBed() {
@@ -168,14 +151,18 @@ public class BedManagementPanel extends JPanel {
                 return;
             }
             
+            if (allocator.findBedById(bedId) != null) {
+                JOptionPane.showMessageDialog(this, "A bed with ID " + bedId + " already exists.", 
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            
             Bed bed = new Bed(bedId, location, type);
             allocator.addBed(bed);
             
             JOptionPane.showMessageDialog(this, "Bed added successfully!", 
                                         "Success", JOptionPane.INFORMATION_MESSAGE);
             
-            refreshData();
-            
             // Clear input fields
             bedIdField.setText("");
             locationField.setText("");
@@ -185,22 +172,92 @@ public class BedManagementPanel extends JPanel {
         }
     }
 
+    // Add a consecutive range of bed IDs (e.g. a new wing) in one allocator call
+    private void addBedRange() {
+        JTextField firstIdField = new JTextField(bedIdField.getText().trim(), 10);
+        JTextField countField = new JTextField("10", 10);
+        JTextField prefixField = new JTextField(locationField.getText().trim(), 10);
+        JComboBox<String> rangeTypeCombo = new JComboBox<>(new String[]{"ICU", "Regular Ward", "Private Room", "General"});
+        rangeTypeCombo.setSelectedItem(typeCombo.getSelectedItem());
+
+        JPanel rangePanel = new JPanel(new GridLayout(4, 2, 5, 5));
+        rangePanel.add(new JLabel("First Bed ID:"));
+        rangePanel.add(firstIdField);
+        rangePanel.add(new JLabel("Number of Beds:"));
+        rangePanel.add(countField);
+        rangePanel.add(new JLabel("Location Prefix:"));
+        rangePanel.add(prefixField);
+        rangePanel.add(new JLabel("Type:"));
+        rangePanel.add(rangeTypeCombo);
+
+        int choice = JOptionPane.showConfirmDialog(this, rangePanel, "Add Bed Range",
+                                                   JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) return;
+
+        try {
+            int firstId = Integer.parseInt(firstIdField.getText().trim());
+            int count = Integer.parseInt(countField.getText().trim());
+            String prefix = prefixField.getText().trim();
+            String type = (String) rangeTypeCombo.getSelectedItem();
+
+            if (count <= 0 || (long) firstId + count - 1 > Integer.MAX_VALUE) {
+                JOptionPane.showMessageDialog(this, "Please enter a positive number of beds that fits the ID range.", 
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (prefix.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Please enter a location prefix for the beds.", 
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            // Each bed is located at <prefix>-<bed ID>
+            List<Bed> beds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int bedId = firstId + i;
+                beds.add(new Bed(bedId, prefix + "-" + bedId, type));
+            }
+
+            int waitingBefore = allocator.getWaitingPatientCount();
+            int added = allocator.addBeds(beds);
+            int assigned = waitingBefore - allocator.getWaitingPatientCount();
+
+            String message = added + " of " + count + " beds added";
+            if (added < count) {
+                message += " (" + (count - added) + " IDs already existed)";
+            }
+            message += ".\n" + assigned + " waiting patients were assigned to beds.";
+            JOptionPane.showMessageDialog(this, message, 
+                                        "Success", JOptionPane.INFORMATION_MESSAGE);
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Please enter valid numbers for the first bed ID and the count.", 
+                                        "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void releaseBed() {
         try {
-            String bedIdStr = JOptionPane.showInputDialog(this, "Enter Bed ID to release:");
+            String bedIdStr = JOptionPane.showInputDialog(this, "Enter Bed ID to release:", 
+                                                        bedIdField.getText().trim());
             if (bedIdStr == null || bedIdStr.trim().isEmpty()) return;
             
             int bedId = Integer.parseInt(bedIdStr.trim());
             
-            boolean released = allocator.releaseBed(bedId);
-            if (released) {
-                JOptionPane.showMessageDialog(this, "Bed " + bedId + " released successfully!", 
-                                            "Success", JOptionPane.INFORMATION_MESSAGE);
-                refreshData();
-            } else {
-                JOptionPane.showMessageDialog(this, "Bed not found or not occupied.", 
+            Bed bed = allocator.findBedById(bedId);
+            if (bed == null) {
+                JOptionPane.showMessageDialog(this, "Bed " + bedId + " not found.", 
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (!bed.isOccupied()) {
+                JOptionPane.showMessageDialog(this, "Bed " + bedId + " is not occupied.", 
                                             "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            
+            allocator.releaseBed(bedId);
+            JOptionPane.showMessageDialog(this, "Bed " + bedId + " released successfully!", 
+                                        "Success", JOptionPane.INFORMATION_MESSAGE);
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Please enter a valid bed ID.", 
                                         "Error", JOptionPane.ERROR_MESSAGE);
@@ -208,47 +265,27 @@ public class BedManagementPanel extends JPanel {
     }
 
     private void searchBeds() {
-        String searchType = searchTypeField.getText().trim().toLowerCase();
-        List<Bed> allBeds = allocator.getAllBeds();
-        
-        tableModel.setRowCount(0); // Clear existing data
-        
-        for (Bed bed : allBeds) {
-            if (bed.getType().toLowerCase().contains(searchType)) {
-                String patientInfo = bed.getAssignedPatient() != null ? 
-                                   "P" + bed.getAssignedPatient().getPatientId() + 
-                                   " (" + bed.getAssignedPatient().getName() + ")" : "None";
-                
-                Object[] row = {
-                    bed.getBedId(),
-                    bed.getLocation(),
-                    bed.getType(),
-                    bed.isOccupied() ? "Occupied" : "Available",
-                    patientInfo
-                };
-                tableModel.addRow(row);
-            }
-        }
+        String searchType = searchTypeField.getText().trim();
+        tableModel.showBeds(allocator.findBedsByType(searchType));
     }
 
     public void refreshData() {
-        List<Bed> allBeds = allocator.getAllBeds();
-        
-        tableModel.setRowCount(0); // Clear existing data
-        
-        for (Bed bed : allBeds) {
-            String patientInfo = bed.getAssignedPatient() != null ? 
-                               "P" + bed.getAssignedPatient().getPatientId() + 
-                               " (" + bed.getAssignedPatient().getName() + ")" : "None";
-            
-            Object[] row = {
-                bed.getBedId(),
-                bed.getLocation(),
-                bed.getType(),
-                bed.isOccupied() ? "Occupied" : "Available",
-                patientInfo
-            };
-            tableModel.addRow(row);
+        tableModel.showAllBeds();
+    }
+
+    // Apply a frame's allocator changes: new beds are added at the end of the full list
+    // (search results stay as they are) and changed beds are repainted in place; changed is
+    // null when too many changed to track
+    public void applyChanges(boolean bedsAdded, Collection<Bed> changed) {
+        if (bedsAdded) {
+            tableModel.bedsAdded();
+        }
+        if (changed == null) {
+            tableModel.allBedsUpdated();
+        } else {
+            for (Bed bed : changed) {
+                tableModel.bedUpdated(bed);
+            }
         }
     }
 }
\ No newline at end of file
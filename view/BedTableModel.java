@@ -0,0 +1,146 @@
+package view;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.util.List;
+import controller.HospitalBedAllocator;
+import controller.IntIntMap;
+import model.Bed;
+import model.Patient;
+
+// Table model over the allocator's beds, read in place by registration index, or over a
+// list of search results. Every cell holds the row's Bed itself; the Renderer formats
+// only the cells on screen. Changes fire row events instead of rebuilding the table.
+public class BedTableModel extends AbstractTableModel {
+    static final int BED_ID = 0;
+    static final int LOCATION = 1;
+    static final int TYPE = 2;
+    static final int STATUS = 3;
+    static final int ASSIGNED_PATIENT = 4;
+
+    private static final String[] COLUMN_NAMES = {"Bed ID", "Location", "Type", "Status", "Assigned Patient"};
+
+    private final HospitalBedAllocator allocator;
+    private List<Bed> results; // search results, or null to show every bed
+    private int rowCount; // rows announced to the table so far
+    private final IntIntMap rowIndex = new IntIntMap(-1); // bedId -> row
+
+    public BedTableModel(HospitalBedAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return Bed.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return getBedAt(row);
+    }
+
+    // Get the bed shown in a row
+    public Bed getBedAt(int row) {
+        return results == null ? allocator.getBedAt(row) : results.get(row);
+    }
+
+    // Show every bed, in registration order
+    public void showAllBeds() {
+        int oldCount = rowCount;
+        results = null;
+        rowCount = allocator.getAllBedsCount();
+        reindex();
+        PatientTableModel.fireRowsReplaced(this, oldCount, rowCount);
+    }
+
+    // Show a list of beds (the model keeps the list)
+    public void showBeds(List<Bed> beds) {
+        int oldCount = rowCount;
+        results = beds;
+        rowCount = beds.size();
+        reindex();
+        PatientTableModel.fireRowsReplaced(this, oldCount, rowCount);
+    }
+
+    // Add the beds registered since the last update at the end, when showing every bed
+    // (search results stay as they are)
+    public void bedsAdded() {
+        if (results != null) {
+            return;
+        }
+        int first = rowCount;
+        rowCount = allocator.getAllBedsCount();
+        for (int row = first; row < rowCount; row++) {
+            rowIndex.put(getBedAt(row).getBedId(), row);
+        }
+        if (rowCount > first) {
+            fireTableRowsInserted(first, rowCount - 1);
+        }
+    }
+
+    private void reindex() {
+        rowIndex.clear();
+        for (int row = 0; row < rowCount; row++) {
+            rowIndex.put(getBedAt(row).getBedId(), row);
+        }
+    }
+
+    // Repaint the row of a bed whose state changed, if it is shown
+    public void bedUpdated(Bed bed) {
+        int row = rowIndex.get(bed.getBedId());
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    // Repaint every row, when too many beds changed to update them one by one
+    public void allBedsUpdated() {
+        if (rowCount > 0) {
+            fireTableRowsUpdated(0, rowCount - 1);
+        }
+    }
+
+    // Formats a bed's cell for the column being painted
+    public static class Renderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            Bed bed = (Bed) value;
+            return super.getTableCellRendererComponent(table, format(bed, table.convertColumnIndexToModel(column)),
+                                                       isSelected, hasFocus, row, column);
+        }
+
+        private String format(Bed bed, int column) {
+            switch (column) {
+                case BED_ID:
+                    return String.valueOf(bed.getBedId());
+                case LOCATION:
+                    return bed.getLocation();
+                case TYPE:
+                    return bed.getType();
+                case STATUS:
+                    return bed.isOccupied() ? "Occupied" : "Available";
+                default:
+                    Patient patient = bed.getAssignedPatient();
+                    return patient != null ? "P" + patient.getPatientId() + " (" + patient.getName() + ")" : "None";
+            }
+        }
+    }
+}
@@ -2,14 +2,19 @@ package view;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.InputEvent;
+import java.util.Collections;
 import java.util.List;
-import controller.MinHeap;
+import controller.PatientQueue;
 import model.Patient;
 
 public class HeapVisualizationPanel extends JPanel {
+    private static final int TEXT_PATIENTS_PER_LEVEL = 64; // deeper levels are summarised in the text view
+
     private controller.HospitalBedAllocator allocator;
     private JTextArea heapDisplayArea;
     private JButton refreshButton;
+    private JButton zoomInButton, zoomOutButton, fitButton;
     private HeapVisualizationCanvas canvas;
 
     public HeapVisualizationPanel(controller.HospitalBedAllocator allocator) {
@@ -26,8 +31,11 @@ public class HeapVisualizationPanel extends JPanel {
         heapDisplayArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
         
         refreshButton = new JButton("Refresh Visualization");
+        zoomInButton = new JButton("Zoom In");
+        zoomOutButton = new JButton("Zoom Out");
+        fitButton = new JButton("Fit Width");
         
-        canvas = new HeapVisualizationCanvas(allocator);
+        canvas = new HeapVisualizationCanvas();
     }
 
     private void layoutComponents() {
@@ -36,6 +44,9 @@ public class HeapVisualizationPanel extends JPanel {
         // Top control panel
         JPanel controlPanel = new JPanel(new FlowLayout());
         controlPanel.add(refreshButton);
+        controlPanel.add(zoomInButton);
+        controlPanel.add(zoomOutButton);
+        controlPanel.add(fitButton);
         
         // Create split pane for text view and graphical view
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
@@ -58,187 +69,397 @@ public class HeapVisualizationPanel extends JPanel {
 
     private void setupEventHandlers() {
         refreshButton.addActionListener(e -> refreshVisualization());
+        zoomInButton.addActionListener(e -> canvas.zoomIn());
+        zoomOutButton.addActionListener(e -> canvas.zoomOut());
+        fitButton.addActionListener(e -> canvas.fitWidth());
+
+        // Ctrl + mouse wheel zooms around the pointer; the plain wheel still scrolls
+        canvas.addMouseWheelListener(e -> {
+            if ((e.getModifiersEx() & InputEvent.CTRL_DOWN_MASK) != 0) {
+                canvas.zoomAt(e.getWheelRotation() < 0 ? HeapVisualizationCanvas.ZOOM_STEP :
+                              1 / HeapVisualizationCanvas.ZOOM_STEP, e.getX());
+            } else {
+                Component scrollPane = SwingUtilities.getAncestorOfClass(JScrollPane.class, canvas);
+                if (scrollPane != null) {
+                    scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(canvas, e, scrollPane));
+                }
+            }
+        });
     }
 
     public void refreshVisualization() {
+        // Take one snapshot per refresh, shared by both views, rather than one per repaint
+        // (getPatientAt per slot is not O(1) for every queue type)
+        PatientQueue heap = getHeapFromAllocator();
+        List<Patient> heapList = heap.getHeapList();
+
         // Update text representation
-        updateTextVisualization();
-        
+        updateTextVisualization(heap, heapList);
+
         // Update graphical representation
-        canvas.repaint();
+        canvas.setHeap(heapList);
     }
 
-    private void updateTextVisualization() {
-        heapDisplayArea.setText("");
-        
-        // Get the heap from the allocator
-        MinHeap heap = getHeapFromAllocator();
-        
-        if (heap.isEmpty()) {
-            heapDisplayArea.append("The patient priority queue is currently empty.\n");
-            return;
-        }
-        
-        heapDisplayArea.append("HEAP STRUCTURE (Level by Level):\n");
-        heapDisplayArea.append("================================\n\n");
-        
-        // Show heap level by level (similar to the original display method)
-        int size = heap.size();
-        if (size == 0) {
-            heapDisplayArea.append("Heap is empty\n");
+    private void updateTextVisualization(PatientQueue heap, List<Patient> heapList) {
+        if (heapList.isEmpty()) {
+            heapDisplayArea.setText("The patient priority queue is currently empty.\n");
             return;
         }
 
+        // Built in one piece and set at once rather than appended patient by patient
+        StringBuilder text = new StringBuilder();
+        text.append("HEAP STRUCTURE (Level by Level):\n");
+        text.append("================================\n\n");
+
+        // Show heap level by level (similar to the original display method); wide levels
+        // list their first patients and count the rest
+        int size = heapList.size();
         int level = 0;
         int start = 0;
         int count = 1;
 
         while (start < size) {
-            heapDisplayArea.append("Level " + level + ": ");
+            text.append("Level ").append(level).append(": ");
             int end = Math.min(start + count, size);
+            int shownEnd = Math.min(end, start + TEXT_PATIENTS_PER_LEVEL);
 
-            for (int i = start; i < end; i++) {
-                Patient patient = heap.getPatientAt(i);  // Need to add this method to MinHeap
+            for (int i = start; i < shownEnd; i++) {
+                Patient patient = heapList.get(i);
                 if (patient != null) {
-                    heapDisplayArea.append(patient.toString() + " | ");
+                    text.append(patient.toString()).append(" | ");
                 }
             }
-            heapDisplayArea.append("\n");
+            if (end > shownEnd) {
+                text.append("... ").append(end - shownEnd).append(" more");
+            }
+            text.append("\n");
 
             start += count;
             count *= 2;
             level++;
         }
-        
-        heapDisplayArea.append("\n");
-        heapDisplayArea.append("HEAP STATISTICS:\n");
-        heapDisplayArea.append("Total Patients in Queue: " + size + "\n");
-        if (!heap.isEmpty()) {
-            Patient minPatient = heap.getMin();
-            if (minPatient != null) {
-                heapDisplayArea.append("Highest Priority Patient: P" + minPatient.getPatientId() + 
-                                     " (" + minPatient.getName() + ") - Criticality: " + minPatient.getCriticality() + "\n");
-            }
+
+        text.append("\n");
+        text.append("HEAP STATISTICS:\n");
+        text.append("Total Patients in Queue: ").append(size).append("\n");
+        Patient minPatient = heap.getMin();
+        if (minPatient != null) {
+            text.append("Highest Priority Patient: P").append(minPatient.getPatientId())
+                .append(" (").append(minPatient.getName()).append(") - Criticality: ")
+                .append(minPatient.getCriticality()).append("\n");
         }
+        heapDisplayArea.setText(text.toString());
     }
 
     // Helper method to access the heap from allocator (need to add getter to HospitalBedAllocator)
-    private MinHeap getHeapFromAllocator() {
+    private PatientQueue getHeapFromAllocator() {
         return allocator.getPatientHeap();
     }
 }
 
-// Separate class for graphical visualization
-class HeapVisualizationCanvas extends JPanel {
-    private controller.HospitalBedAllocator allocator;
-    private controller.MinHeap heap;
-    private List<Patient> heapList;
+// Separate class for graphical visualization. The tree is laid out once per heap version
+// (setHeap): node positions follow from the heap index, so only the level count and each
+// level's criticality totals are kept. A repaint walks just the nodes inside the clip, and
+// levels whose nodes would be too narrow at the current zoom are drawn as one summary band
+// each, so its cost depends on the viewport rather than on the number of patients.
+class HeapVisualizationCanvas extends JPanel implements Scrollable {
+    static final double ZOOM_STEP = 1.25;
 
-    public HeapVisualizationCanvas(controller.HospitalBedAllocator allocator) {
-        this.allocator = allocator;
-        setPreferredSize(new Dimension(800, 400));
+    private static final int NODE_RADIUS = 25;
+    private static final int LEAF_SPACING = 64; // horizontal space per leaf at zoom 1
+    private static final int LEVEL_SPACING = 70;
+    private static final int MARGIN = 50;
+    private static final int MIN_NODE_SPACING = 12; // narrower levels are drawn as summary bands
+    private static final int BAND_HEIGHT = 10;
+    private static final double MAX_ZOOM = 2.0;
+    private static final double MAX_CANVAS_WIDTH = 1 << 24; // keeps coordinates well inside int range
+
+    private static final Color CRITICAL_COLOR = new Color(220, 20, 60); // Red
+    private static final Color MEDIUM_COLOR = new Color(255, 165, 0); // Orange
+    private static final Color LOW_COLOR = new Color(60, 179, 113); // Green
+    private static final int[] BAND_ORDER = {1, 2, 3, 0}; // criticality order of summary band segments
+
+    private List<Patient> heapList = Collections.emptyList();
+    private int levels;
+    private int[][] levelCriticality = new int[0][]; // patients per level by criticality (0 = other)
+    private double treeWidth; // width of the tree at zoom 1
+    private double zoom = 1.0;
+    private boolean fitted = true; // zoom follows the viewport width
+
+    public HeapVisualizationCanvas() {
         setBackground(Color.WHITE);
     }
-    
+
+    // Show a new heap version (the canvas keeps the list) and lay it out
+    public void setHeap(List<Patient> heapList) {
+        this.heapList = heapList;
+        int size = heapList.size();
+        levels = 32 - Integer.numberOfLeadingZeros(size);
+        levelCriticality = new int[levels][4];
+        for (int i = 0; i < size; i++) {
+            Patient patient = heapList.get(i);
+            if (patient != null) {
+                levelCriticality[levelOf(i)][criticalityIndex(patient.getCriticality())]++;
+            }
+        }
+        treeWidth = levels > 0 ? Math.scalb((double) LEAF_SPACING, levels - 1) : 0;
+        zoom = Math.min(zoom, maxZoom());
+        revalidate();
+        repaint();
+    }
+
+    public void zoomIn() {
+        zoomAt(ZOOM_STEP, getVisibleRect().getCenterX());
+    }
+
+    public void zoomOut() {
+        zoomAt(1 / ZOOM_STEP, getVisibleRect().getCenterX());
+    }
+
+    // Fit the whole tree to the viewport width, and keep it fitted as the viewport resizes
+    public void fitWidth() {
+        fitted = true;
+        revalidate();
+        repaint();
+    }
+
+    // Change the zoom by a factor, keeping the tree point under anchorX where it is on screen
+    public void zoomAt(double factor, double anchorX) {
+        if (heapList.isEmpty()) {
+            return;
+        }
+        Rectangle visible = getVisibleRect();
+        int viewportWidth = getParent() instanceof JViewport ?
+                            ((JViewport) getParent()).getExtentSize().width : getWidth();
+        double oldZoom = currentZoom();
+        double oldOrigin = originX(getWidth(), treeWidth * oldZoom);
+        double anchor = (anchorX - oldOrigin) / (treeWidth * oldZoom); // fraction of the tree width
+
+        double fitZoom = fitZoom(viewportWidth);
+        zoom = Math.max(fitZoom, Math.min(maxZoom(), oldZoom * factor));
+        fitted = zoom <= fitZoom;
+
+        if (getParent() instanceof JViewport) {
+            JViewport viewport = (JViewport) getParent();
+            Dimension size = new Dimension(fitted ? viewportWidth : Math.max(viewportWidth, getPreferredSize().width),
+                                           Math.max(viewport.getExtentSize().height, getPreferredSize().height));
+            double newContent = treeWidth * currentZoom(size.width);
+            double newAnchorX = originX(size.width, newContent) + anchor * newContent;
+            int viewX = (int) Math.round(newAnchorX - (anchorX - visible.x));
+            viewX = Math.max(0, Math.min(viewX, size.width - viewportWidth));
+            viewport.setViewSize(size);
+            viewport.setViewPosition(new Point(viewX, visible.y));
+        }
+        revalidate();
+        repaint();
+    }
+
+    private double maxZoom() {
+        return treeWidth > 0 ? Math.min(MAX_ZOOM, MAX_CANVAS_WIDTH / treeWidth) : MAX_ZOOM;
+    }
+
+    // Zoom at which the tree fills the given width; small trees stay at zoom 1
+    private double fitZoom(int width) {
+        return treeWidth > 0 ? Math.min(1.0, Math.max(1, width - 2 * MARGIN) / treeWidth) : 1.0;
+    }
+
+    private double currentZoom() {
+        return currentZoom(getWidth());
+    }
+
+    private double currentZoom(int width) {
+        return fitted ? fitZoom(width) : zoom;
+    }
+
+    // Left edge of the tree, centred when it is narrower than the canvas
+    private static double originX(int width, double contentWidth) {
+        return Math.max(MARGIN, (width - contentWidth) / 2);
+    }
+
+    private static int levelOf(int index) {
+        return 31 - Integer.numberOfLeadingZeros(index + 1);
+    }
+
+    private static int criticalityIndex(int criticality) {
+        return criticality >= 1 && criticality <= 3 ? criticality : 0;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (levels == 0) {
+            return new Dimension(400, 40);
+        }
+        int width = fitted ? 2 * MARGIN : (int) Math.ceil(treeWidth * zoom) + 2 * MARGIN;
+        return new Dimension(width, 2 * MARGIN + (levels - 1) * LEVEL_SPACING);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(800, 400);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.HORIZONTAL ? LEAF_SPACING / 2 : LEVEL_SPACING / 2;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.HORIZONTAL ? Math.max(1, visibleRect.width - LEAF_SPACING) :
+                                                          Math.max(1, visibleRect.height - LEVEL_SPACING);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return fitted || (getParent() != null && getParent().getWidth() > getPreferredSize().width);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() != null && getParent().getHeight() > getPreferredSize().height;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        // Get current heap data
-        heap = allocator.getPatientHeap();
-        heapList = heap.getHeapList();
-        
+
         if (heapList.isEmpty()) {
             g2d.drawString("The patient priority queue is currently empty.", 10, 20);
             return;
         }
-        
+
         drawHeapTree(g2d);
     }
-    
+
     private void drawHeapTree(Graphics2D g2d) {
-        int nodeRadius = 25;
-        int horizontalSpacing = 80;
-        int verticalSpacing = 70;
-        
-        if (heapList.isEmpty()) return;
-        
-        // Calculate positions and draw the tree structure
-        drawNodeLevel(g2d, 0, getWidth() / 2, 50, nodeRadius, 0, horizontalSpacing, verticalSpacing);
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        double contentWidth = treeWidth * currentZoom();
+        double origin = originX(getWidth(), contentWidth);
+        FontMetrics fm = g2d.getFontMetrics();
+
+        for (int level = 0; level < levels; level++) {
+            int y = MARGIN + level * LEVEL_SPACING;
+            if (y - NODE_RADIUS > clip.y + clip.height) {
+                break;
+            }
+            // Edges reach up to the level above, so a level is needed until it is above the clip
+            if (y + NODE_RADIUS < clip.y) {
+                continue;
+            }
+            int first = (1 << level) - 1;
+            int count = Math.min(1 << level, heapList.size() - first);
+            double spacing = Math.scalb(contentWidth, -level);
+
+            if (spacing < MIN_NODE_SPACING) {
+                drawLevelSummary(g2d, fm, clip, level, y, origin, origin + count * spacing);
+            } else {
+                drawLevelNodes(g2d, fm, clip, level, y, origin, spacing, first, count);
+            }
+        }
     }
-    
-    private void drawNodeLevel(Graphics2D g2d, int index, int x, int y, int radius,
-                              int level, int hSpacing, int vSpacing) {
-        if (index >= heapList.size()) return;
-        
-        Patient patient = heapList.get(index);
-        String nodeLabel = "P" + patient.getPatientId() + "\n" + patient.getCriticality();
-        
-        // Draw the node
-        drawNode(g2d, x, y, radius, nodeLabel, patient.getCriticality());
-        
-        // Calculate positions for children
-        int leftChildIndex = 2 * index + 1;
-        int rightChildIndex = 2 * index + 2;
-        
-        int newHSpacing = Math.max(30, hSpacing / 2);
-        
-        if (leftChildIndex < heapList.size()) {
-            int leftX = x - (hSpacing / 2);
-            int leftY = y + vSpacing;
-            // Draw line to left child
-            g2d.drawLine(x, y + radius, leftX, leftY - radius);
-            // Draw left child
-            drawNodeLevel(g2d, leftChildIndex, leftX, leftY, radius, level + 1, newHSpacing, vSpacing);
+
+    // Draw the nodes of one level that fall inside the clip, with the edges to their parents
+    private void drawLevelNodes(Graphics2D g2d, FontMetrics fm, Rectangle clip, int level, int y,
+                                double origin, double spacing, int first, int count) {
+        int radius = nodeRadius(spacing);
+        int parentRadius = nodeRadius(spacing * 2);
+        // A child sits spacing / 2 from its parent, so this also covers edges whose parent is visible
+        double reach = spacing + NODE_RADIUS;
+        int from = (int) Math.max(0, Math.floor((clip.x - reach - origin) / spacing));
+        int to = (int) Math.min(count - 1, Math.ceil((clip.x + clip.width + reach - origin) / spacing));
+
+        if (level > 0) {
+            g2d.setColor(Color.BLACK);
+            for (int position = from; position <= to; position++) {
+                int x = (int) (origin + (position + 0.5) * spacing);
+                int parentX = (int) (origin + (position / 2 + 0.5) * spacing * 2);
+                g2d.drawLine(parentX, y - LEVEL_SPACING + parentRadius, x, y - radius);
+            }
         }
-        
-        if (rightChildIndex < heapList.size()) {
-            int rightX = x + (hSpacing / 2);
-            int rightY = y + vSpacing;
-            // Draw line to right child
-            g2d.drawLine(x, y + radius, rightX, rightY - radius);
-            // Draw right child
-            drawNodeLevel(g2d, rightChildIndex, rightX, rightY, radius, level + 1, newHSpacing, vSpacing);
-        }
-    }
-    
-    private void drawNode(Graphics2D g2d, int x, int y, int radius, String label, int criticality) {
-        // Determine color based on criticality
-        Color nodeColor;
+        for (int position = from; position <= to; position++) {
+            Patient patient = heapList.get(first + position);
+            if (patient != null) {
+                drawNode(g2d, fm, (int) (origin + (position + 0.5) * spacing), y, radius, patient);
+            }
+        }
+    }
+
+    private static int nodeRadius(double spacing) {
+        return (int) Math.max(1, Math.min(NODE_RADIUS, spacing * 0.4));
+    }
+
+    // Draw a level too dense for single nodes as one band split by criticality, with its totals
+    private void drawLevelSummary(Graphics2D g2d, FontMetrics fm, Rectangle clip, int level, int y,
+                                  double left, double right) {
+        int[] counts = levelCriticality[level];
+        int total = counts[0] + counts[1] + counts[2] + counts[3];
+        int top = y - BAND_HEIGHT;
+        // Only the visible part is filled; coordinates outside the clip could overflow an int
+        double clipLeft = clip.x - 1;
+        double clipRight = clip.x + clip.width + 1;
+
+        double segmentLeft = left;
+        for (int index : BAND_ORDER) {
+            if (counts[index] == 0 || total == 0) {
+                continue;
+            }
+            double segmentRight = segmentLeft + (right - left) * counts[index] / total;
+            int x0 = (int) Math.max(segmentLeft, clipLeft);
+            int x1 = (int) Math.min(segmentRight, clipRight);
+            if (x1 > x0) {
+                g2d.setColor(criticalityColor(index));
+                g2d.fillRect(x0, top, x1 - x0, BAND_HEIGHT);
+            }
+            segmentLeft = segmentRight;
+        }
+        int x0 = (int) Math.max(left, clipLeft);
+        int x1 = (int) Math.min(right, clipRight);
+        if (x1 <= x0) {
+            return;
+        }
+        g2d.setColor(Color.BLACK);
+        g2d.drawRect(x0, top, x1 - x0, BAND_HEIGHT);
+
+        String label = "Level " + level + ": " + total + " patients (C1: " + counts[1] + ", C2: " + counts[2] +
+                       ", C3: " + counts[3] + ")";
+        int textX = (x0 + x1) / 2 - fm.stringWidth(label) / 2;
+        g2d.drawString(label, Math.max(x0, textX), y + fm.getAscent() + 2);
+    }
+
+    private static Color criticalityColor(int criticality) {
         switch (criticality) {
             case 1: // Most critical
-                nodeColor = new Color(220, 20, 60); // Red
-                break;
+                return CRITICAL_COLOR;
             case 2: // Medium criticality
-                nodeColor = new Color(255, 165, 0); // Orange
-                break;
+                return MEDIUM_COLOR;
             case 3: // Low criticality
-                nodeColor = new Color(60, 179, 113); // Green
-                break;
+                return LOW_COLOR;
             default:
-                nodeColor = Color.LIGHT_GRAY;
+                return Color.LIGHT_GRAY;
         }
-        
+    }
+
+    private void drawNode(Graphics2D g2d, FontMetrics fm, int x, int y, int radius, Patient patient) {
         // Draw the node
-        g2d.setColor(nodeColor);
+        g2d.setColor(criticalityColor(patient.getCriticality()));
         g2d.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
         g2d.setColor(Color.BLACK);
         g2d.drawOval(x - radius, y - radius, 2 * radius, 2 * radius);
-        
-        // Draw the label
-        g2d.setColor(Color.WHITE);
-        FontMetrics fm = g2d.getFontMetrics();
-        String[] lines = label.split("\n");
-        
+
+        // Draw the ID and criticality, when the node is large enough to hold them
+        String id = "P" + patient.getPatientId();
+        String criticality = String.valueOf(patient.getCriticality());
         int height = fm.getHeight();
-        int textY = y - (lines.length - 1) * height / 2;
-        
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            int textX = x - fm.stringWidth(line) / 2;
-            g2d.drawString(line, textX, textY + i * height);
+        if (fm.stringWidth(id) > 2 * radius || 2 * height > 2 * radius + 4) {
+            return;
         }
+        g2d.setColor(Color.WHITE);
+        g2d.drawString(id, x - fm.stringWidth(id) / 2, y - height / 2);
+        g2d.drawString(criticality, x - fm.stringWidth(criticality) / 2, y + height / 2);
     }
-}
\ No newline at end of file
+}
@@ -8,21 +8,54 @@ import model.Bed;
 
 public class HospitalManagementGUI extends JFrame {
     private controller.HospitalBedAllocator allocator;
+    private controller.CheckpointService checkpoints;
     private JTabbedPane tabbedPane;
     private PatientManagementPanel patientPanel;
     private BedManagementPanel bedPanel;
     private ReportPanel reportPanel;
     private HeapVisualizationPanel heapPanel;
+    private ViewUpdater viewUpdater;
 
     public HospitalManagementGUI() {
         allocator = new controller.HospitalBedAllocator();
-        
-        // Initialize the demo data
-        initializeDemoData();
+
+        // Keep only recent discharges in memory if -Dhospital.archive=<dir> is set
+        String archiveDirectory = System.getProperty(controller.DischargeArchive.PROPERTY);
+        if (archiveDirectory != null) {
+            allocator.openArchive(new java.io.File(archiveDirectory));
+        }
+        
+        // Recover the journaled state if -Dhospital.journal=<dir> is set, otherwise
+        // warm-restart from the last saved snapshot (beds, assignments and queue order)
+        String journalDirectory = System.getProperty(controller.Journal.PROPERTY);
+        if (journalDirectory != null) {
+            allocator.openJournal(new java.io.File(journalDirectory));
+        } else {
+            allocator.loadSystemData();
+        }
+        
+        // Initialize the demo data (unless some beds were restored)
+        if (allocator.getAllBedsCount() == 0) {
+            initializeDemoData();
+        }
+        
+        // Save in the background; every N seconds too if -Dhospital.checkpoint=<N> is set
+        checkpoints = new controller.CheckpointService(allocator);
+        Long checkpointSeconds = Long.getLong(controller.CheckpointService.PROPERTY);
+        if (checkpointSeconds != null && checkpointSeconds > 0) {
+            checkpoints.startPeriodic(checkpointSeconds, java.util.concurrent.TimeUnit.SECONDS,
+                                      SwingUtilities::invokeLater);
+        }
         
         // Set up the main window
         setTitle("Hospital Management System - Min-Heap Priority Scheduling");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                saveOnExit();
+            }
+        });
         setSize(1200, 800);
         setLocationRelativeTo(null); // Center the window
         setIconImage(createIcon());
@@ -36,6 +69,9 @@ public class HospitalManagementGUI extends JFrame {
         reportPanel = new ReportPanel(allocator);
         heapPanel = new HeapVisualizationPanel(allocator);
         
+        // Apply allocator changes to the panels, once per frame
+        viewUpdater = new ViewUpdater(allocator, patientPanel, bedPanel, reportPanel, heapPanel);
+        
         // Add tabs
         tabbedPane.addTab("Patients", null, patientPanel, "Patient Management");
         tabbedPane.addTab("Beds", null, bedPanel, "Bed Management");
@@ -74,8 +110,21 @@ public class HospitalManagementGUI extends JFrame {
         
         fileMenu.addSeparator();
         
+        JMenuItem importItem = new JMenuItem("Import CSV...");
+        importItem.addActionListener(e -> importCsv());
+        fileMenu.add(importItem);
+        
+        JMenuItem exportItem = new JMenuItem("Export CSV...");
+        exportItem.addActionListener(e -> exportCsv());
+        fileMenu.add(exportItem);
+        
+        fileMenu.addSeparator();
+        
         JMenuItem exitItem = new JMenuItem("Exit");
-        exitItem.addActionListener(e -> System.exit(0));
+        exitItem.addActionListener(e -> {
+            saveOnExit();
+            System.exit(0);
+        });
         fileMenu.add(exitItem);
         
         menuBar.add(fileMenu);
@@ -93,18 +142,59 @@ public class HospitalManagementGUI extends JFrame {
     }
     
     private void saveData() {
-        allocator.saveSystemData();
-        JOptionPane.showMessageDialog(this, "System data saved successfully!", 
-                                    "Save Data", JOptionPane.INFORMATION_MESSAGE);
+        // Only the capture runs here; the file is written in the background
+        checkpoints.checkpoint().thenAccept(saved -> SwingUtilities.invokeLater(() -> {
+            if (saved) {
+                JOptionPane.showMessageDialog(this, "System data saved successfully!", 
+                                            "Save Data", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "System data could not be saved.", 
+                                            "Save Data", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
+    }
+    
+    // Take a last, full checkpoint so the next start resumes here with the exact queue order;
+    // the shutdown hook waits for the write
+    private void saveOnExit() {
+        checkpoints.checkpoint(true);
     }
     
     private void loadData() {
-        allocator.loadSystemData();
-        refreshAllViews();
+        allocator.loadSystemData(); // The panels reload on the next frame
         JOptionPane.showMessageDialog(this, "System data loaded successfully!", 
                                     "Load Data", JOptionPane.INFORMATION_MESSAGE);
     }
     
+    private void importCsv() {
+        java.io.File directory = chooseCsvDirectory("Import CSV");
+        if (directory != null) {
+            allocator.importCsv(directory);
+            JOptionPane.showMessageDialog(this, "CSV data imported successfully!", 
+                                        "Import CSV", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    private void exportCsv() {
+        java.io.File directory = chooseCsvDirectory("Export CSV");
+        if (directory != null) {
+            allocator.exportCsv(directory);
+            JOptionPane.showMessageDialog(this, "CSV data exported successfully!", 
+                                        "Export CSV", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    // Ask for the directory holding patients.txt, beds.txt and discharged_patients.txt
+    private java.io.File chooseCsvDirectory(String title) {
+        JFileChooser chooser = new JFileChooser(new java.io.File("."));
+        chooser.setDialogTitle(title);
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showDialog(this, "Select") != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        return chooser.getSelectedFile();
+    }
+    
     private void refreshAllViews() {
         patientPanel.refreshData();
         bedPanel.refreshData();
@@ -1,19 +1,20 @@
 package view;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.Collection;
 import java.util.List;
 import model.Patient;
 
 public class PatientManagementPanel extends JPanel {
     private controller.HospitalBedAllocator allocator;
     private JTable patientTable;
-    private DefaultTableModel tableModel;
+    private PatientTableModel tableModel;
     private JTextField idField, nameField;
     private JComboBox<Integer> criticalityCombo;
     private JButton registerButton, updateButton, searchButton;
     private JTextField searchField;
+    private boolean showingAll; // the table lists every patient rather than search results
 
     public PatientManagementPanel(controller.HospitalBedAllocator allocator) {
         this.allocator = allocator;
@@ -25,8 +26,9 @@ public class PatientManagementPanel extends JPanel {
 
     private void initializeComponents() {
         // Initialize components
-        tableModel = new DefaultTableModel();
+        tableModel = new PatientTableModel();
         patientTable = new JTable(tableModel);
+        patientTable.setDefaultRenderer(Patient.class, new PatientTableModel.Renderer());
         patientTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         
         idField = new JTextField(10);
@@ -36,10 +38,6 @@ public class PatientManagementPanel extends JPanel {
         updateButton = new JButton("Update Criticality");
         searchButton = new JButton("Search");
         searchField = new JTextField(15);
-        
-        // Set up table
-        String[] columnNames = {"ID", "Name", "Criticality", "Arrival Time", "Assigned Bed", "Status"};
-        tableModel.setColumnIdentifiers(columnNames);
     }
 
     private void layoutComponents() {
@@ -127,46 +125,24 @@ public class PatientManagementPanel extends JPanel {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = patientTable.getSelectedRow();
                 if (selectedRow >= 0) {
-                    String patientIdStr = (String) tableModel.getValueAt(selectedRow, 0);
-                    if (patientIdStr != null && patientIdStr.startsWith("P")) {
-                        patientIdStr = patientIdStr.substring(1); // Remove 'P' prefix
-                    }
-                    idField.setText(patientIdStr);
+                    idField.setText(String.valueOf(tableModel.getPatientAt(selectedRow).getPatientId()));
                 }
             }
         });
     }
 
     private void performAdvancedSearch(String nameFilter, Integer criticalityFilter) {
-        List<Patient> allPatients = allocator.getAllPatientsForDisplay();
-
-        tableModel.setRowCount(0); // Clear existing data
-
-        for (Patient patient : allPatients) {
-            // Apply name filter
-            boolean nameMatch = nameFilter.isEmpty() ||
-                              patient.getName().toLowerCase().contains(nameFilter.toLowerCase());
-
-            // Apply criticality filter (0 means no filter)
-            boolean criticalityMatch = criticalityFilter == 0 || patient.getCriticality() == criticalityFilter;
-
-            if (nameMatch && criticalityMatch) {
-                String bedInfo = patient.getAssignedBed() != null ?
-                               String.valueOf(patient.getAssignedBed().getBedId()) : "None";
-                String status = patient.isAssigned() ?
-                              (patient.isDischarged() ? "Discharged" : "Assigned") : "Waiting";
-
-                Object[] row = {
-                    "P" + patient.getPatientId(),
-                    patient.getName(),
-                    patient.getCriticality(),
-                    new java.util.Date(patient.getArrivalTime()),
-                    bedInfo,
-                    status
-                };
-                tableModel.addRow(row);
-            }
+        // The name filter is answered by the allocator's name index
+        List<Patient> patients = nameFilter.isEmpty() ?
+                                 allocator.getAllPatientsForDisplay() :
+                                 allocator.findPatientsByName(nameFilter);
+
+        // Apply criticality filter (0 means no filter)
+        if (criticalityFilter != 0) {
+            patients.removeIf(patient -> patient.getCriticality() != criticalityFilter);
         }
+        showingAll = false;
+        tableModel.setPatients(patients);
     }
 
     private void registerPatient() {
@@ -182,13 +158,15 @@ public class PatientManagementPanel extends JPanel {
             }
             
             Patient patient = new Patient(patientId, name, criticality);
-            allocator.insertPatient(patient);
+            if (!allocator.insertPatient(patient)) {
+                JOptionPane.showMessageDialog(this, "A patient with ID " + patientId + " is already registered.", 
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             
             JOptionPane.showMessageDialog(this, "Patient registered successfully!", 
                                         "Success", JOptionPane.INFORMATION_MESSAGE);
             
-            refreshData();
-            
             // Clear input fields
             idField.setText("");
             nameField.setText("");
@@ -217,7 +195,10 @@ public class PatientManagementPanel extends JPanel {
             if (updated) {
                 JOptionPane.showMessageDialog(this, "Patient criticality updated successfully!", 
                                             "Success", JOptionPane.INFORMATION_MESSAGE);
-                refreshData();
+            } else if (allocator.findPatientById(patientId) != null) {
+                JOptionPane.showMessageDialog(this, "Patient P" + patientId + " is not waiting (" + 
+                                            allocator.getPatientLocation(patientId).getLabel() + ").", 
+                                            "Error", JOptionPane.ERROR_MESSAGE);
             } else {
                 JOptionPane.showMessageDialog(this, "Patient not found.", 
                                             "Error", JOptionPane.ERROR_MESSAGE);
@@ -229,51 +210,30 @@ public class PatientManagementPanel extends JPanel {
     }
 
     private void searchPatients() {
-        String searchName = searchField.getText().trim().toLowerCase();
-        List<Patient> allPatients = allocator.getAllPatientsForDisplay();
-        
-        tableModel.setRowCount(0); // Clear existing data
-        
-        for (Patient patient : allPatients) {
-            if (patient.getName().toLowerCase().contains(searchName)) {
-                String bedInfo = patient.getAssignedBed() != null ? 
-                               String.valueOf(patient.getAssignedBed().getBedId()) : "None";
-                String status = patient.isAssigned() ? 
-                              (patient.isDischarged() ? "Discharged" : "Assigned") : "Waiting";
-                
-                Object[] row = {
-                    "P" + patient.getPatientId(),
-                    patient.getName(),
-                    patient.getCriticality(),
-                    new java.util.Date(patient.getArrivalTime()),
-                    bedInfo,
-                    status
-                };
-                tableModel.addRow(row);
-            }
-        }
+        String searchName = searchField.getText().trim();
+        showingAll = false;
+        tableModel.setPatients(allocator.findPatientsByName(searchName));
     }
 
     public void refreshData() {
-        List<Patient> allPatients = allocator.getAllPatientsForDisplay();
-        
-        tableModel.setRowCount(0); // Clear existing data
-        
-        for (Patient patient : allPatients) {
-            String bedInfo = patient.getAssignedBed() != null ? 
-                           String.valueOf(patient.getAssignedBed().getBedId()) : "None";
-            String status = patient.isAssigned() ? 
-                          (patient.isDischarged() ? "Discharged" : "Assigned") : "Waiting";
-            
-            Object[] row = {
-                "P" + patient.getPatientId(),
-                patient.getName(),
-                patient.getCriticality(),
-                new java.util.Date(patient.getArrivalTime()),
-                bedInfo,
-                status
-            };
-            tableModel.addRow(row);
+        showingAll = true;
+        tableModel.setPatients(allocator.getAllPatientsForDisplay());
+    }
+
+    // Apply a frame's allocator changes: admitted patients are added at the end of the full
+    // list (search results stay as they are) and changed patients are repainted in place;
+    // changed is null when too many changed to track. Rows keep their place until the next
+    // full refresh.
+    public void applyChanges(List<Patient> admitted, Collection<Patient> changed) {
+        if (showingAll) {
+            tableModel.addPatients(admitted);
+        }
+        if (changed == null) {
+            tableModel.allPatientsUpdated();
+        } else {
+            for (Patient patient : changed) {
+                tableModel.patientUpdated(patient);
+            }
         }
     }
 }
\ No newline at end of file
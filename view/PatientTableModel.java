@@ -0,0 +1,148 @@
+package view;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import controller.IntIntMap;
+import model.Patient;
+
+// Table model over a list of patients. Every cell holds the row's Patient itself; the
+// Renderer formats only the cells on screen, so large tables cost nothing per row until
+// they are scrolled into view. Changes fire row events instead of rebuilding the table.
+public class PatientTableModel extends AbstractTableModel {
+    static final int ID = 0;
+    static final int NAME = 1;
+    static final int CRITICALITY = 2;
+    static final int ARRIVAL_TIME = 3;
+    static final int ASSIGNED_BED = 4;
+    static final int STATUS = 5;
+
+    private static final String[] COLUMN_NAMES = {"ID", "Name", "Criticality", "Arrival Time", "Assigned Bed", "Status"};
+
+    private List<Patient> rows = new ArrayList<>();
+    private final IntIntMap rowIndex = new IntIntMap(-1); // patientId -> row
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return Patient.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return rows.get(row);
+    }
+
+    // Get the patient shown in a row
+    public Patient getPatientAt(int row) {
+        return rows.get(row);
+    }
+
+    // Show a new list of patients (the model keeps the list): the rows both lists share are
+    // updated, the rest inserted or deleted at the end
+    public void setPatients(List<Patient> patients) {
+        int oldCount = rows.size();
+        rows = patients;
+        rowIndex.clear();
+        for (int row = 0; row < patients.size(); row++) {
+            rowIndex.put(patients.get(row).getPatientId(), row);
+        }
+        fireRowsReplaced(this, oldCount, patients.size());
+    }
+
+    // Add patients at the end
+    public void addPatients(List<Patient> patients) {
+        if (patients.isEmpty()) {
+            return;
+        }
+        int first = rows.size();
+        for (Patient patient : patients) {
+            rowIndex.put(patient.getPatientId(), rows.size());
+            rows.add(patient);
+        }
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    // Repaint the row of a patient whose state changed, if it is shown
+    public void patientUpdated(Patient patient) {
+        int row = rowIndex.get(patient.getPatientId());
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    // Repaint every row, when too many patients changed to update them one by one
+    public void allPatientsUpdated() {
+        if (!rows.isEmpty()) {
+            fireTableRowsUpdated(0, rows.size() - 1);
+        }
+    }
+
+    // Fire the events for a table whose first oldCount rows were replaced by newCount rows
+    static void fireRowsReplaced(AbstractTableModel model, int oldCount, int newCount) {
+        int shared = Math.min(oldCount, newCount);
+        if (shared > 0) {
+            model.fireTableRowsUpdated(0, shared - 1);
+        }
+        if (newCount > oldCount) {
+            model.fireTableRowsInserted(oldCount, newCount - 1);
+        } else if (newCount < oldCount) {
+            model.fireTableRowsDeleted(newCount, oldCount - 1);
+        }
+    }
+
+    // Formats a patient's cell for the column being painted
+    public static class Renderer extends DefaultTableCellRenderer {
+        // Same layout as Date.toString(), without a Date per cell
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+        private final Date date = new Date();
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            Patient patient = (Patient) value;
+            return super.getTableCellRendererComponent(table, format(patient, table.convertColumnIndexToModel(column)),
+                                                       isSelected, hasFocus, row, column);
+        }
+
+        private String format(Patient patient, int column) {
+            switch (column) {
+                case ID:
+                    return "P" + patient.getPatientId();
+                case NAME:
+                    return patient.getName();
+                case CRITICALITY:
+                    return String.valueOf(patient.getCriticality());
+                case ARRIVAL_TIME:
+                    date.setTime(patient.getArrivalTime());
+                    return dateFormat.format(date);
+                case ASSIGNED_BED:
+                    return patient.getAssignedBed() != null ?
+                           String.valueOf(patient.getAssignedBed().getBedId()) : "None";
+                default:
+                    return patient.isAssigned() ?
+                           (patient.isDischarged() ? "Discharged" : "Assigned") : "Waiting";
+            }
+        }
+    }
+}
@@ -1,19 +1,53 @@
 package view;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.text.PlainDocument;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import controller.DischargeArchive;
+import controller.SystemSnapshot;
 import model.Patient;
 import model.Bed;
+import model.BedType;
 
+// Reports are generated off the event thread. Each generate* method takes what its report
+// needs on the event thread (immutable records of patients that may still change, the
+// discharged patients, which never change again, and a reader over the archive) and hands
+// a report body to a ReportWorker, which formats it in the background and publishes the
+// text and table rows in chunks. Starting a report cancels the one in progress.
 public class ReportPanel extends JPanel {
+    private static final int CHUNK_SIZE = 500; // lines and rows per published chunk
+
     private controller.HospitalBedAllocator allocator;
     private JTextArea statsArea;
     private JTable patientTable;
-    private DefaultTableModel tableModel;
+    private ReportTableModel tableModel;
     private JComboBox<String> reportTypeCombo;
     private JButton generateButton;
+    private int reportCriticality; // level of the last criticality report, 0 before the first
+    private ReportWorker worker; // report in progress, or null
+    private boolean refreshPending; // data changed while the report was being generated
+
+    // Writes a report through a worker, on the worker's thread
+    private interface ReportBody {
+        void write(ReportWorker out);
+    }
+
+    // A chunk of report text and table rows
+    private static final class ReportChunk {
+        final String text;
+        final List<Object[]> rows;
+
+        ReportChunk(String text, List<Object[]> rows) {
+            this.text = text;
+            this.rows = rows;
+        }
+    }
 
     public ReportPanel(controller.HospitalBedAllocator allocator) {
         this.allocator = allocator;
@@ -28,50 +62,46 @@ public class ReportPanel extends JPanel {
         statsArea = new JTextArea(10, 50);
         statsArea.setEditable(false);
         statsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        
+
         // Patient table for reports
-        tableModel = new DefaultTableModel();
+        tableModel = new ReportTableModel();
         patientTable = new JTable(tableModel);
-        
+
         // Report type selector
         reportTypeCombo = new JComboBox<>(new String[]{
-            "General Statistics", 
-            "Waiting Patients", 
-            "Occupied Beds", 
+            "General Statistics",
+            "Waiting Patients",
+            "Occupied Beds",
             "Discharged Patients",
             "Patients by Criticality"
         });
         generateButton = new JButton("Generate Report");
-        
-        // Set up table
-        String[] columnNames = {"ID", "Name", "Criticality", "Status", "Assigned Bed"};
-        tableModel.setColumnIdentifiers(columnNames);
     }
 
     private void layoutComponents() {
         setLayout(new BorderLayout());
-        
+
         // Top panel for report selection
         JPanel controlPanel = new JPanel(new FlowLayout());
         controlPanel.add(new JLabel("Report Type:"));
         controlPanel.add(reportTypeCombo);
         controlPanel.add(generateButton);
-        
+
         // Split the main area
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
-        
+
         // Top part: statistics
         JScrollPane statsScrollPane = new JScrollPane(statsArea);
         statsScrollPane.setBorder(BorderFactory.createTitledBorder("Statistics"));
-        
+
         // Bottom part: patient table
         JScrollPane tableScrollPane = new JScrollPane(patientTable);
         tableScrollPane.setBorder(BorderFactory.createTitledBorder("Report Details"));
-        
+
         splitPane.setTopComponent(statsScrollPane);
         splitPane.setBottomComponent(tableScrollPane);
         splitPane.setDividerLocation(250);
-        
+
         add(controlPanel, BorderLayout.NORTH);
         add(splitPane, BorderLayout.CENTER);
     }
@@ -81,8 +111,14 @@ public class ReportPanel extends JPanel {
     }
 
     private void generateReport() {
+        generateReport(true);
+    }
+
+    // Generate the selected report; a refresh repeats the last criticality report instead
+    // of asking for the level again
+    private void generateReport(boolean ask) {
         String reportType = (String) reportTypeCombo.getSelectedItem();
-        
+
         switch (reportType) {
             case "General Statistics":
                 generateGeneralStats();
@@ -97,190 +133,383 @@ public class ReportPanel extends JPanel {
                 generateDischargedPatientsReport();
                 break;
             case "Patients by Criticality":
-                generatePatientsByCriticalityReport();
+                if (ask) {
+                    generatePatientsByCriticalityReport();
+                } else if (reportCriticality != 0) {
+                    generatePatientsByCriticalityReport(reportCriticality);
+                }
                 break;
         }
     }
 
+    // Clear the report area and start generating a report, cancelling the one in progress
+    private void startReport(ReportBody body) {
+        // Replace the worker first: cancelling runs the old worker's done() right away
+        ReportWorker previous = worker;
+        worker = new ReportWorker(body);
+        if (previous != null) {
+            // Not interrupted: an interrupt would close the archive files it may be reading
+            previous.cancel(false);
+        }
+        refreshPending = false;
+        statsArea.setDocument(new PlainDocument()); // Cheaper than removing every line of a long report
+        tableModel.clear();
+        worker.execute();
+    }
+
     private void generateGeneralStats() {
         int waitingCount = allocator.getWaitingPatientCount();
         int availableBeds = allocator.getAvailableBedCount();
         int totalBeds = allocator.getAllBedsCount();
         int occupiedBeds = totalBeds - availableBeds;
-        double occupancyRate = totalBeds > 0 ? (double) occupiedBeds / totalBeds * 100 : 0;
-        
-        // Clear table
-        tableModel.setRowCount(0);
-        
-        // Update stats area
-        statsArea.setText("");
-        statsArea.append("=== GENERAL STATISTICS ===\n");
-        statsArea.append("Total Beds: " + totalBeds + "\n");
-        statsArea.append("Occupied Beds: " + occupiedBeds + "\n");
-        statsArea.append("Available Beds: " + availableBeds + "\n");
-        statsArea.append(String.format("Occupancy Rate: %.2f%%\n", occupancyRate));
-        statsArea.append("Waiting Patients: " + waitingCount + "\n\n");
-        
-        // Add some additional stats
-        statsArea.append("=== ADDITIONAL METRICS ===\n");
-        statsArea.append("Discharged Patients: " + allocator.getDischargedPatients().size() + "\n");
-        
-        // Count patients by criticality
+        int dischargedCount = allocator.getDischargedPatientCount();
+        int[] criticalityCounts = new int[4];
         for (int i = 1; i <= 3; i++) {
-            int count = allocator.getPatientsByCriticality(i).size();
-            statsArea.append("Criticality " + i + " Patients: " + count + "\n");
+            criticalityCounts[i] = allocator.getPatientCountByCriticality(i);
+        }
+        List<String> bedTypeLines = new ArrayList<>();
+        for (BedType type : BedType.values()) {
+            int bedCount = allocator.getBedCount(type.getName());
+            if (bedCount > 0) {
+                bedTypeLines.add(type.getName() + ": " + allocator.getOccupiedBedCount(type.getName()) +
+                                 "/" + bedCount + " occupied");
+            }
         }
+
+        startReport(out -> {
+            double occupancyRate = totalBeds > 0 ? (double) occupiedBeds / totalBeds * 100 : 0;
+            out.line("=== GENERAL STATISTICS ===");
+            out.line("Total Beds: " + totalBeds);
+            out.line("Occupied Beds: " + occupiedBeds);
+            out.line("Available Beds: " + availableBeds);
+            out.line(String.format("Occupancy Rate: %.2f%%", occupancyRate));
+            out.line("Waiting Patients: " + waitingCount + "\n");
+
+            // Add some additional stats
+            out.line("=== ADDITIONAL METRICS ===");
+            out.line("Discharged Patients: " + dischargedCount);
+
+            // Count patients by criticality
+            for (int i = 1; i <= 3; i++) {
+                out.line("Criticality " + i + " Patients: " + criticalityCounts[i]);
+            }
+
+            // Occupancy by bed type
+            out.line("\n=== OCCUPANCY BY BED TYPE ===");
+            for (String line : bedTypeLines) {
+                out.line(line);
+            }
+        });
     }
 
     private void generateWaitingPatientsReport() {
-        List<Patient> waitingPatients = allocator.getWaitingPatients();
-        
-        // Clear stats area
-        statsArea.setText("");
-        statsArea.append("=== WAITING PATIENTS REPORT ===\n");
-        statsArea.append("Number of waiting patients: " + waitingPatients.size() + "\n\n");
-        
-        // Clear and populate table
-        tableModel.setRowCount(0);
-        
-        if (waitingPatients.isEmpty()) {
-            statsArea.append("No patients are currently waiting.\n");
-            return;
-        }
-        
-        statsArea.append("Waiting Patients List:\n");
-        for (Patient patient : waitingPatients) {
-            Object[] row = {
-                "P" + patient.getPatientId(),
-                patient.getName(),
-                patient.getCriticality(),
-                "Waiting",
-                "None"
-            };
-            tableModel.addRow(row);
-            statsArea.append("- P" + patient.getPatientId() + ": " + patient.getName() + 
-                           " (Criticality: " + patient.getCriticality() + ")\n");
-        }
+        List<SystemSnapshot.PatientRecord> waitingPatients = records(allocator.getWaitingPatients());
+
+        startReport(out -> {
+            out.line("=== WAITING PATIENTS REPORT ===");
+            out.line("Number of waiting patients: " + waitingPatients.size() + "\n");
+
+            if (waitingPatients.isEmpty()) {
+                out.line("No patients are currently waiting.");
+                return;
+            }
+
+            out.line("Waiting Patients List:");
+            for (SystemSnapshot.PatientRecord patient : waitingPatients) {
+                out.row("P" + patient.getPatientId(), patient.getName(), patient.getCriticality(), "Waiting", "None");
+                out.line("- P" + patient.getPatientId() + ": " + patient.getName() +
+                         " (Criticality: " + patient.getCriticality() + ")");
+            }
+        });
     }
 
     private void generateOccupiedBedsReport() {
-        List<Bed> allBeds = allocator.getAllBeds();
-        
-        // Clear stats area
-        statsArea.setText("");
-        statsArea.append("=== OCCUPIED BEDS REPORT ===\n");
-        
-        // Clear and populate table
-        tableModel.setRowCount(0);
-        
-        int occupiedCount = 0;
-        for (Bed bed : allBeds) {
+        // Occupied beds (whose ID and location never change) and their patients, in bed order
+        List<Bed> occupiedBeds = new ArrayList<>();
+        List<SystemSnapshot.PatientRecord> patients = new ArrayList<>();
+        for (int i = 0; i < allocator.getAllBedsCount(); i++) {
+            Bed bed = allocator.getBedAt(i);
             if (bed.isOccupied() && bed.getAssignedPatient() != null) {
-                Patient patient = bed.getAssignedPatient();
-                Object[] row = {
-                    "P" + patient.getPatientId(),
-                    patient.getName(),
-                    patient.getCriticality(),
-                    "Occupied by Patient",
-                    bed.getBedId()
-                };
-                tableModel.addRow(row);
-                occupiedCount++;
+                occupiedBeds.add(bed);
+                patients.add(record(bed.getAssignedPatient()));
             }
         }
-        
-        statsArea.append("Number of occupied beds: " + occupiedCount + "\n\n");
-        statsArea.append("Occupied Beds Details:\n");
-        for (Bed bed : allBeds) {
-            if (bed.isOccupied() && bed.getAssignedPatient() != null) {
-                Patient patient = bed.getAssignedPatient();
-                statsArea.append("Bed " + bed.getBedId() + " (" + bed.getLocation() + "): " + 
-                               "P" + patient.getPatientId() + " - " + patient.getName() + 
-                               " (Criticality: " + patient.getCriticality() + ")\n");
+
+        startReport(out -> {
+            out.line("=== OCCUPIED BEDS REPORT ===");
+            out.line("Number of occupied beds: " + occupiedBeds.size() + "\n");
+            out.line("Occupied Beds Details:");
+            for (int i = 0; i < occupiedBeds.size(); i++) {
+                Bed bed = occupiedBeds.get(i);
+                SystemSnapshot.PatientRecord patient = patients.get(i);
+                out.row("P" + patient.getPatientId(), patient.getName(), patient.getCriticality(),
+                        "Occupied by Patient", bed.getBedId());
+                out.line("Bed " + bed.getBedId() + " (" + bed.getLocation() + "): " +
+                         "P" + patient.getPatientId() + " - " + patient.getName() +
+                         " (Criticality: " + patient.getCriticality() + ")");
             }
-        }
+        });
     }
 
     private void generateDischargedPatientsReport() {
-        List<Patient> dischargedPatients = allocator.getDischargedPatients();
-        
-        // Clear stats area
-        statsArea.setText("");
-        statsArea.append("=== DISCHARGED PATIENTS REPORT ===\n");
-        statsArea.append("Number of discharged patients: " + dischargedPatients.size() + "\n\n");
-        
-        // Clear and populate table
-        tableModel.setRowCount(0);
-        
-        if (dischargedPatients.isEmpty()) {
-            statsArea.append("No patients have been discharged yet.\n");
-            return;
-        }
-        
-        statsArea.append("Discharged Patients List:\n");
-        for (Patient patient : dischargedPatients) {
-            Object[] row = {
-                "P" + patient.getPatientId(),
-                patient.getName(),
-                patient.getCriticality(),
-                "Discharged",
-                "N/A"
+        int dischargedCount = allocator.getDischargedPatientCount();
+        DischargeArchive.Reader archived = archiveReader();
+        List<Patient> recent = allocator.getDischargedPatients(); // Discharged patients never change
+
+        startReport(out -> {
+            out.line("=== DISCHARGED PATIENTS REPORT ===");
+            out.line("Number of discharged patients: " + dischargedCount + "\n");
+
+            if (dischargedCount == 0) {
+                out.line("No patients have been discharged yet.");
+                return;
+            }
+
+            // Archived discharges are read back from disk a block at a time
+            out.line("Discharged Patients List:");
+            Consumer<List<Patient>> sink = dischargedPatients -> {
+                for (Patient patient : dischargedPatients) {
+                    out.row("P" + patient.getPatientId(), patient.getName(), patient.getCriticality(),
+                            "Discharged", "N/A");
+                    out.line("- P" + patient.getPatientId() + ": " + patient.getName() +
+                             " (Criticality: " + patient.getCriticality() +
+                             ", Discharged: " + new java.util.Date(patient.getDischargeTime()) + ")");
+                }
             };
-            tableModel.addRow(row);
-            statsArea.append("- P" + patient.getPatientId() + ": " + patient.getName() + 
-                           " (Criticality: " + patient.getCriticality() + 
-                           ", Discharged: " + new java.util.Date(patient.getDischargeTime()) + ")\n");
-        }
+            if (archived != null) {
+                archived.forEach(sink);
+            }
+            sink.accept(recent);
+        });
     }
 
     private void generatePatientsByCriticalityReport() {
         // Ask user for criticality level
         String input = JOptionPane.showInputDialog(this, "Enter criticality level (1-3):", "2");
         if (input == null || input.trim().isEmpty()) return;
-        
+
         try {
             int criticality = Integer.parseInt(input.trim());
             if (criticality < 1 || criticality > 3) {
-                JOptionPane.showMessageDialog(this, "Criticality must be between 1 and 3.", 
+                JOptionPane.showMessageDialog(this, "Criticality must be between 1 and 3.",
                                             "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            
-            List<Patient> patients = allocator.getPatientsByCriticality(criticality);
-            
-            // Clear stats area
-            statsArea.setText("");
-            statsArea.append("=== PATIENTS WITH CRITICALITY " + criticality + " REPORT ===\n");
-            statsArea.append("Number of patients: " + patients.size() + "\n\n");
-            
-            // Clear and populate table
-            tableModel.setRowCount(0);
-            
-            statsArea.append("Patients with Criticality " + criticality + ":\n");
-            for (Patient patient : patients) {
-                String status = patient.isAssigned() ? 
-                              (patient.isDischarged() ? "Discharged" : "Assigned") : "Waiting";
-                String bedInfo = patient.getAssignedBed() != null ? 
-                               String.valueOf(patient.getAssignedBed().getBedId()) : "None";
-                
-                Object[] row = {
-                    "P" + patient.getPatientId(),
-                    patient.getName(),
-                    patient.getCriticality(),
-                    status,
-                    bedInfo
-                };
-                tableModel.addRow(row);
-                statsArea.append("- P" + patient.getPatientId() + ": " + patient.getName() + 
-                               " (" + status + ")\n");
-            }
+            reportCriticality = criticality;
+            generatePatientsByCriticalityReport(criticality);
         } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this, "Please enter a valid number.", 
+            JOptionPane.showMessageDialog(this, "Please enter a valid number.",
                                         "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    private void generatePatientsByCriticalityReport(int criticality) {
+        // Waiting patients, then assigned patients with their beds, then discharged patients
+        List<SystemSnapshot.PatientRecord> waiting = new ArrayList<>();
+        for (Patient patient : allocator.getWaitingPatients()) {
+            if (patient.getCriticality() == criticality) {
+                waiting.add(record(patient));
+            }
+        }
+        List<SystemSnapshot.PatientRecord> assigned = new ArrayList<>();
+        List<Integer> assignedBedIds = new ArrayList<>();
+        for (int i = 0; i < allocator.getAllBedsCount(); i++) {
+            Bed bed = allocator.getBedAt(i);
+            Patient patient = bed.getAssignedPatient();
+            if (bed.isOccupied() && patient != null && patient.getCriticality() == criticality) {
+                assigned.add(record(patient));
+                assignedBedIds.add(bed.getBedId());
+            }
+        }
+        DischargeArchive.Reader archived = archiveReader();
+        List<Patient> recent = allocator.getDischargedPatients();
+        int patientCount = allocator.getPatientCountByCriticality(criticality);
+
+        startReport(out -> {
+            out.line("=== PATIENTS WITH CRITICALITY " + criticality + " REPORT ===");
+            out.line("Number of patients: " + patientCount + "\n");
+            out.line("Patients with Criticality " + criticality + ":");
+            for (SystemSnapshot.PatientRecord patient : waiting) {
+                addPatient(out, patient.getPatientId(), patient.getName(), criticality, "Waiting", "None");
+            }
+            for (int i = 0; i < assigned.size(); i++) {
+                SystemSnapshot.PatientRecord patient = assigned.get(i);
+                addPatient(out, patient.getPatientId(), patient.getName(), criticality, "Assigned",
+                           String.valueOf(assignedBedIds.get(i)));
+            }
+            Consumer<List<Patient>> sink = dischargedPatients -> {
+                for (Patient patient : dischargedPatients) {
+                    if (patient.getCriticality() == criticality) {
+                        addPatient(out, patient.getPatientId(), patient.getName(), criticality, "Discharged", "None");
+                    }
+                }
+            };
+            if (archived != null) {
+                archived.forEach(sink);
+            }
+            sink.accept(recent);
+        });
+    }
+
+    // Add a patient's row and line to a criticality report
+    private static void addPatient(ReportWorker out, int patientId, String name, int criticality,
+                                   String status, String bedInfo) {
+        out.row("P" + patientId, name, criticality, status, bedInfo);
+        out.line("- P" + patientId + ": " + name + " (" + status + ")");
+    }
+
+    // Take a reader over the archived discharges, or null when not archiving
+    private DischargeArchive.Reader archiveReader() {
+        DischargeArchive archive = allocator.getArchive();
+        return archive != null ? archive.reader() : null;
+    }
+
+    // Immutable copies of patients that may change while a report is generated
+    private static List<SystemSnapshot.PatientRecord> records(List<Patient> patients) {
+        List<SystemSnapshot.PatientRecord> records = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            records.add(record(patient));
+        }
+        return records;
+    }
+
+    private static SystemSnapshot.PatientRecord record(Patient patient) {
+        return new SystemSnapshot.PatientRecord(patient.getPatientId(), patient.getName(), patient.getCriticality(),
+                                                patient.getArrivalTime(), patient.getDischargeTime());
+    }
+
+    // Regenerate the selected report, or do so once the report in progress is done
     public void refreshData() {
-        generateReport(); // Generate the default report
+        if (worker != null) {
+            refreshPending = true;
+        } else {
+            generateReport(false);
+        }
+    }
+
+    // Generates one report in the background, publishing it a chunk at a time
+    private final class ReportWorker extends SwingWorker<Void, ReportChunk> {
+        private final ReportBody body;
+        private StringBuilder text = new StringBuilder();
+        private List<Object[]> rows = new ArrayList<>();
+        private int pending; // lines and rows since the last chunk
+
+        ReportWorker(ReportBody body) {
+            this.body = body;
+        }
+
+        // Add a line of report text
+        void line(String line) {
+            text.append(line).append('\n');
+            if (++pending >= CHUNK_SIZE) {
+                publishChunk();
+            }
+        }
+
+        // Add a row to the report table
+        void row(Object... row) {
+            rows.add(row);
+            if (++pending >= CHUNK_SIZE) {
+                publishChunk();
+            }
+        }
+
+        // Publish what was written since the last chunk; stops the report once it is cancelled
+        private void publishChunk() {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            if (text.length() > 0 || !rows.isEmpty()) {
+                publish(new ReportChunk(text.toString(), rows));
+                text = new StringBuilder();
+                rows = new ArrayList<>();
+            }
+            pending = 0;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            try {
+                body.write(this);
+                publishChunk();
+            } catch (CancellationException e) {
+                // A newer report replaced this one
+            }
+            return null;
+        }
+
+        @Override
+        protected void process(List<ReportChunk> chunks) {
+            if (worker != this) {
+                return; // Published before this report was replaced
+            }
+            StringBuilder chunkText = new StringBuilder();
+            List<Object[]> chunkRows = new ArrayList<>();
+            for (ReportChunk chunk : chunks) {
+                chunkText.append(chunk.text);
+                chunkRows.addAll(chunk.rows);
+            }
+            statsArea.append(chunkText.toString());
+            tableModel.addRows(chunkRows);
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this) {
+                return;
+            }
+            worker = null;
+            try {
+                get();
+            } catch (InterruptedException | ExecutionException e) {
+                statsArea.append("\nReport failed: " + e.getCause() + "\n");
+            }
+            if (refreshPending) {
+                refreshPending = false;
+                generateReport(false);
+            }
+        }
+    }
+
+    // Report rows, already formatted by the worker
+    private static final class ReportTableModel extends AbstractTableModel {
+        private static final String[] COLUMN_NAMES = {"ID", "Name", "Criticality", "Status", "Assigned Bed"};
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return rows.get(row)[column];
+        }
+
+        void addRows(List<Object[]> added) {
+            if (!added.isEmpty()) {
+                int first = rows.size();
+                rows.addAll(added);
+                fireTableRowsInserted(first, rows.size() - 1);
+            }
+        }
+
+        void clear() {
+            if (!rows.isEmpty()) {
+                rows.clear();
+                fireTableDataChanged();
+            }
+        }
     }
-}
\ No newline at end of file
+}
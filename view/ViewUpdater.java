@@ -0,0 +1,185 @@
+package view;
+
+import javax.swing.*;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import controller.AllocationListener;
+import controller.HospitalBedAllocator;
+import model.Bed;
+import model.Patient;
+
+// Keeps the GUI panels in step with the allocator. The allocator callbacks only record what
+// changed; a Swing timer then applies everything recorded during one frame together, so a
+// burst of admissions costs one table update rather than a rebuild per action. The patient
+// and bed tables get just the changed rows; the report and heap views are regenerated only
+// while they are on screen, or when they next come on screen.
+class ViewUpdater implements AllocationListener {
+    private static final int FRAME_MILLIS = 16;
+    private static final int MAX_TRACKED_ROWS = 1024; // beyond this a whole table is repainted
+
+    private final PatientManagementPanel patientPanel;
+    private final BedManagementPanel bedPanel;
+    private final ReportPanel reportPanel;
+    private final HeapVisualizationPanel heapPanel;
+    private final Timer timer;
+
+    // Changes recorded since the last frame, guarded by this: callbacks come from whichever
+    // thread owns the allocator
+    private List<Patient> admittedPatients = new ArrayList<>();
+    private Set<Patient> changedPatients = new LinkedHashSet<>(); // null once too many to track
+    private Set<Bed> changedBeds = new LinkedHashSet<>(); // null once too many to track
+    private boolean bedsAdded;
+    private boolean replaced;
+    private boolean scheduled;
+
+    // Event thread only
+    private boolean reportStale;
+    private boolean heapStale;
+
+    public ViewUpdater(HospitalBedAllocator allocator, PatientManagementPanel patientPanel,
+                       BedManagementPanel bedPanel, ReportPanel reportPanel, HeapVisualizationPanel heapPanel) {
+        this.patientPanel = patientPanel;
+        this.bedPanel = bedPanel;
+        this.reportPanel = reportPanel;
+        this.heapPanel = heapPanel;
+        this.timer = new Timer(FRAME_MILLIS, e -> applyChanges());
+        this.timer.setRepeats(false);
+
+        // Catch up on changes made while the report or heap tab was hidden
+        reportPanel.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                refreshVisibleViews();
+            }
+        });
+        heapPanel.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                refreshVisibleViews();
+            }
+        });
+        allocator.addListener(this);
+    }
+
+    // Apply the changes recorded during the last frame (on the event thread)
+    private void applyChanges() {
+        List<Patient> admitted;
+        Set<Patient> patients;
+        Set<Bed> beds;
+        boolean added;
+        boolean replacedAll;
+        synchronized (this) {
+            admitted = admittedPatients;
+            patients = changedPatients;
+            beds = changedBeds;
+            added = bedsAdded;
+            replacedAll = replaced;
+            admittedPatients = new ArrayList<>();
+            changedPatients = new LinkedHashSet<>();
+            changedBeds = new LinkedHashSet<>();
+            bedsAdded = false;
+            replaced = false;
+            scheduled = false;
+        }
+
+        if (replacedAll) {
+            patientPanel.refreshData();
+            bedPanel.refreshData();
+        } else {
+            patientPanel.applyChanges(admitted, patients);
+            bedPanel.applyChanges(added, beds);
+        }
+        reportStale = true;
+        if (replacedAll || !admitted.isEmpty() || patients == null || !patients.isEmpty()) {
+            heapStale = true;
+        }
+        refreshVisibleViews();
+    }
+
+    // Regenerate the report and heap views that are out of date and on screen
+    private void refreshVisibleViews() {
+        if (reportStale && reportPanel.isShowing()) {
+            reportStale = false;
+            reportPanel.refreshData();
+        }
+        if (heapStale && heapPanel.isShowing()) {
+            heapStale = false;
+            heapPanel.refreshVisualization();
+        }
+    }
+
+    // Start the frame timer for the first change recorded since the last frame; the caller
+    // holds the lock
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            timer.start();
+        }
+    }
+
+    private void patientChanged(Patient patient) {
+        if (changedPatients != null) {
+            changedPatients.add(patient);
+            if (changedPatients.size() > MAX_TRACKED_ROWS) {
+                changedPatients = null;
+            }
+        }
+    }
+
+    private void bedChanged(Bed bed) {
+        if (changedBeds != null) {
+            changedBeds.add(bed);
+            if (changedBeds.size() > MAX_TRACKED_ROWS) {
+                changedBeds = null;
+            }
+        }
+    }
+
+    // Allocator events: record the change and make sure a frame is coming
+
+    @Override
+    public synchronized void patientsAdmitted(List<Patient> patients) {
+        admittedPatients.addAll(patients);
+        schedule();
+    }
+
+    @Override
+    public synchronized void patientAssigned(Patient patient, Bed bed) {
+        patientChanged(patient);
+        bedChanged(bed);
+        schedule();
+    }
+
+    @Override
+    public synchronized void patientReprioritized(Patient patient) {
+        patientChanged(patient);
+        schedule();
+    }
+
+    @Override
+    public synchronized void bedReleased(Bed bed, Patient dischargedPatient) {
+        bedChanged(bed);
+        if (dischargedPatient != null) {
+            patientChanged(dischargedPatient);
+        }
+        schedule();
+    }
+
+    @Override
+    public synchronized void bedAdded(Bed bed) {
+        bedsAdded = true;
+        schedule();
+    }
+
+    @Override
+    public synchronized void stateReplaced() {
+        // Everything is reloaded, so the individual changes no longer matter
+        admittedPatients.clear();
+        changedPatients = new LinkedHashSet<>();
+        changedBeds = new LinkedHashSet<>();
+        replaced = true;
+        schedule();
+    }
+}